@@ -5,10 +5,20 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.Map;
 
 public class AdminDashboard extends JFrame {
+    // Menu entries and quick actions shown only when the session holds the permission
+    private static final Map<String, Session.Permission> MENU_PERMISSIONS = Map.of(
+        "Manage Librarians", Session.Permission.MANAGE_LIBRARIANS,
+        "View Reports", Session.Permission.VIEW_REPORTS,
+        "Fine Management", Session.Permission.MANAGE_FINES,
+        "User Approvals", Session.Permission.APPROVE_USERS,
+        "Query Statistics", Session.Permission.VIEW_QUERY_STATISTICS);
+
+    private Session session;
     private int userId;
-    private JPanel contentPanel;
+    private PanelRegistry contentPanel;
     private JLabel statusLabel;
     private boolean isDarkMode = false;
     private Color darkBackground = new Color(33, 33, 33);
@@ -19,42 +29,16 @@ public class AdminDashboard extends JFrame {
     private String adminName;
     private Color accentColor = new Color(70, 130, 180);
 
-    public AdminDashboard(int userId) {
-        this.userId = userId;
+    public AdminDashboard(Session session) {
+        this.session = session;
+        this.userId = session.getUserId();
+        this.isDarkMode = session.isDarkMode();
         setTitle("Library Management System - Admin Dashboard");
         setSize(1200, 800);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        // Get admin name from database (optional, fallback to 'Admin')
-        adminName = "Admin";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement("SELECT name, username FROM users WHERE id = ?");
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                String dbName = rs.getString("name");
-                String dbUsername = rs.getString("username");
-                System.out.println("Fetched from DB: name = '" + dbName + "', username = '" + dbUsername + "'");
-                adminName = dbName;
-                if (adminName == null || adminName.trim().isEmpty()) {
-                    adminName = dbUsername;
-                }
-                if (adminName == null || adminName.trim().isEmpty()) {
-                    adminName = "Admin";
-                }
-            } else {
-                System.out.println("No user found for id: " + userId);
-                adminName = "Admin";
-            }
-            rs.close();
-            stmt.close();
-            conn.close();
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            adminName = "Admin";
-        }
+        adminName = session.getDisplayName("Admin");
 
         // Create main split pane
         JSplitPane splitPane = new JSplitPane();
@@ -65,15 +49,20 @@ public class AdminDashboard extends JFrame {
         splitPane.setLeftComponent(menuPanel);
         
         // Create content panel
-        contentPanel = new JPanel(new BorderLayout());
+        contentPanel = new PanelRegistry();
         contentPanel.setBackground(isDarkMode ? darkBackground : lightBackground);
+        registerPanels();
         splitPane.setRightComponent(contentPanel);
         
         // Create status bar
         statusLabel = new JLabel("Welcome, " + adminName + "!");
         statusLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
         statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        add(statusLabel, BorderLayout.SOUTH);
+        JPanel statusBar = new JPanel(new BorderLayout());
+        statusBar.setOpaque(false);
+        statusBar.add(statusLabel, BorderLayout.WEST);
+        statusBar.add(new ConnectionStatusBar(), BorderLayout.EAST);
+        add(statusBar, BorderLayout.SOUTH);
         
         add(splitPane);
         
@@ -151,13 +140,17 @@ public class AdminDashboard extends JFrame {
             "Fine Management",
             "User Approvals",
             "System Settings",
+            "Query Statistics",
             "Toggle Theme",
             "Logout"
         };
         String[] icons = {
-            "", "", "", "", "", "", "", ""
+            "", "", "", "", "", "", "", "", ""
         };
         for (int i = 0; i < menuItems.length; i++) {
+            if (!isAllowed(menuItems[i])) {
+                continue;
+            }
             JPanel buttonPanel = new JPanel(new BorderLayout());
             buttonPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 50));
             buttonPanel.setOpaque(false);
@@ -169,6 +162,11 @@ public class AdminDashboard extends JFrame {
         return panel;
     }
 
+    private boolean isAllowed(String menuItem) {
+        Session.Permission required = MENU_PERMISSIONS.get(menuItem);
+        return required == null || session.has(required);
+    }
+
     private JButton createMenuButton(String text, String icon) {
         JButton button = new JButton(icon + "  " + text);
         button.setFont(new Font("Segoe UI", Font.PLAIN, 14));
@@ -208,6 +206,9 @@ public class AdminDashboard extends JFrame {
                 case "System Settings":
                     showSettings();
                     break;
+                case "Query Statistics":
+                    showQueryStatistics();
+                    break;
                 case "Toggle Theme":
                     toggleTheme();
                     break;
@@ -221,6 +222,7 @@ public class AdminDashboard extends JFrame {
 
     private void toggleTheme() {
         isDarkMode = !isDarkMode;
+        contentPanel.clear();
         applyTheme();
     }
 
@@ -248,8 +250,33 @@ public class AdminDashboard extends JFrame {
         SwingUtilities.updateComponentTreeUI(this);
     }
 
+    // Screens are built on first show and reloaded only when the data they list has changed
+    private void registerPanels() {
+        contentPanel.register("Dashboard", this::createWelcomePanel,
+            DataVersions.Domain.USERS, DataVersions.Domain.BOOKS, DataVersions.Domain.LOANS);
+        contentPanel.register("Manage Librarians", () -> themed(new LibrarianManagementPanel()),
+            DataVersions.Domain.USERS);
+        contentPanel.register("View Reports", () -> themed(new ReportsPanel()),
+            DataVersions.Domain.BOOKS, DataVersions.Domain.LOANS, DataVersions.Domain.FINES);
+        contentPanel.register("Fine Management", () -> themed(new FineManagementPanel()),
+            DataVersions.Domain.FINES);
+        contentPanel.register("User Approvals", () -> themed(new UserApprovalPanel()),
+            DataVersions.Domain.USERS);
+        contentPanel.register("System Settings", () -> themed(new SettingsPanel(session, updated -> session = updated)));
+        contentPanel.register("Query Statistics", () -> themed(new QueryStatsPanel()));
+    }
+
+    private JPanel themed(JPanel panel) {
+        panel.setBackground(isDarkMode ? darkBackground : lightBackground);
+        return panel;
+    }
+
     private void showWelcomeMessage() {
-        contentPanel.removeAll();
+        contentPanel.show("Dashboard");
+        updateStatus("Welcome to Dashboard");
+    }
+
+    private JPanel createWelcomePanel() {
         JPanel welcomePanel = new JPanel(new GridBagLayout());
         welcomePanel.setBackground(isDarkMode ? darkBackground : lightBackground);
         GridBagConstraints gbc = new GridBagConstraints();
@@ -267,16 +294,13 @@ public class AdminDashboard extends JFrame {
         JPanel quickActionsPanel = new JPanel(new GridLayout(2, 2, 20, 20));
         quickActionsPanel.setOpaque(false);
         quickActionsPanel.setMaximumSize(new Dimension(800, 200));
-        quickActionsPanel.add(createQuickActionCard("Manage Librarians", "", "Add, edit, or remove librarians"));
-        quickActionsPanel.add(createQuickActionCard("View Reports", "", "View system reports"));
-        quickActionsPanel.add(createQuickActionCard("User Approvals", "", "Approve or reject users"));
-        quickActionsPanel.add(createQuickActionCard("System Settings", "", "Configure system settings"));
+        addQuickAction(quickActionsPanel, "Manage Librarians", "", "Add, edit, or remove librarians");
+        addQuickAction(quickActionsPanel, "View Reports", "", "View system reports");
+        addQuickAction(quickActionsPanel, "User Approvals", "", "Approve or reject users");
+        addQuickAction(quickActionsPanel, "System Settings", "", "Configure system settings");
         gbc.gridy = 2;
         welcomePanel.add(quickActionsPanel, gbc);
-        contentPanel.add(welcomePanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
-        updateStatus("Welcome to Dashboard");
+        return welcomePanel;
     }
 
     private JPanel createStatsPanel() {
@@ -343,6 +367,12 @@ public class AdminDashboard extends JFrame {
         return card;
     }
 
+    private void addQuickAction(JPanel panel, String title, String icon, String description) {
+        if (isAllowed(title)) {
+            panel.add(createQuickActionCard(title, icon, description));
+        }
+    }
+
     private JPanel createQuickActionCard(String title, String icon, String description) {
         JPanel card = new JPanel(new BorderLayout());
         card.setBackground(isDarkMode ? new Color(50, 50, 50) : Color.WHITE);
@@ -394,55 +424,35 @@ public class AdminDashboard extends JFrame {
     }
 
     private void showLibrarianManagement() {
-        contentPanel.removeAll();
-        LibrarianManagementPanel panel = new LibrarianManagementPanel();
-        panel.setBackground(isDarkMode ? darkBackground : lightBackground);
-        contentPanel.add(panel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Manage Librarians");
         updateStatus("Managing Librarians");
     }
 
     private void showReports() {
-        contentPanel.removeAll();
-        ReportsPanel panel = new ReportsPanel();
-        panel.setBackground(isDarkMode ? darkBackground : lightBackground);
-        contentPanel.add(panel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("View Reports");
         updateStatus("Viewing Reports");
     }
 
     private void showFineManagement() {
-        contentPanel.removeAll();
-        FineManagementPanel panel = new FineManagementPanel();
-        panel.setBackground(isDarkMode ? darkBackground : lightBackground);
-        contentPanel.add(panel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Fine Management");
         updateStatus("Managing Fines");
     }
 
     private void showUserApprovals() {
-        contentPanel.removeAll();
-        UserApprovalPanel panel = new UserApprovalPanel();
-        panel.setBackground(isDarkMode ? darkBackground : lightBackground);
-        contentPanel.add(panel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("User Approvals");
         updateStatus("Managing User Approvals");
     }
 
     private void showSettings() {
-        contentPanel.removeAll();
-        SettingsPanel panel = new SettingsPanel(userId);
-        panel.setBackground(isDarkMode ? darkBackground : lightBackground);
-        contentPanel.add(panel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("System Settings");
         updateStatus("System Settings");
     }
 
+    private void showQueryStatistics() {
+        contentPanel.show("Query Statistics");
+        updateStatus("Query Statistics");
+    }
+
     private void logout() {
         int confirm = JOptionPane.showConfirmDialog(
             this,
@@ -462,29 +472,16 @@ public class AdminDashboard extends JFrame {
     }
 
     private void loadPendingApprovalsCount() {
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT COUNT(*) FROM users WHERE is_active = false";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            if (rs.next() && rs.getInt(1) > 0) {
-                updateStatus("You have " + rs.getInt(1) + " pending user approvals");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        long pending = getPendingApprovals();
+        if (pending > 0) {
+            updateStatus("You have " + pending + " pending user approvals");
         }
     }
 
-    // Database utility methods
+    // Dashboard counters come from LibraryStats, so rendering the home screen is a memory read
     private int getTotalUsers() {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users WHERE is_active = true");
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+            return (int) LibraryStats.getActiveUsers();
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -493,12 +490,7 @@ public class AdminDashboard extends JFrame {
 
     private int getTotalBooks() {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM books WHERE is_active = true");
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+            return (int) LibraryStats.getActiveBooks();
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -507,14 +499,7 @@ public class AdminDashboard extends JFrame {
 
     private int getActiveLoanCount() {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(
-                "SELECT COUNT(*) FROM book_borrowings WHERE status = 'BORROWED'"
-            );
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+            return (int) LibraryStats.getActiveLoans();
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -523,12 +508,7 @@ public class AdminDashboard extends JFrame {
 
     private int getPendingApprovals() {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users WHERE is_active = false");
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+            return (int) LibraryStats.getPendingApprovals();
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,179 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write pipeline that coalesces queued inserts/updates into JDBC batches, grouped by SQL text.
+// A flush runs once maxBatchSize writes are queued or maxDelayMillis after the first one arrived,
+// and applies everything queued in a single transaction.
+public class BatchWriter {
+    private final ConnectionPool.ConnectionFactory connections;
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-batch-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Object queueLock = new Object();
+    private Map<String, List<PendingWrite>> queued = new LinkedHashMap<>();
+    private int queuedCount = 0;
+    private boolean flushScheduled = false;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong statementsWritten = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+    private final LatencyHistogram flushTimes = new LatencyHistogram();
+
+    public BatchWriter(ConnectionPool.ConnectionFactory connections, int maxBatchSize, long maxDelayMillis) {
+        this.connections = connections;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    // Queues one write. The future completes with its update count once the batch holding it commits.
+    public CompletableFuture<Integer> submit(String sql, DatabaseConnection.StatementBinder binder) {
+        PendingWrite write = new PendingWrite(binder);
+        boolean flushNow;
+        synchronized (queueLock) {
+            queued.computeIfAbsent(sql, k -> new ArrayList<>()).add(write);
+            queuedCount++;
+            flushNow = queuedCount >= maxBatchSize;
+            if (!flushNow && !flushScheduled) {
+                flushScheduled = true;
+                flusher.schedule(this::flushQuietly, maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            flusher.execute(this::flushQuietly);
+        }
+        return write.result;
+    }
+
+    // Writes everything queued so far on the calling thread. Every write submitted before
+    // this call has completed (successfully or not) when it returns.
+    public synchronized void flush() throws SQLException {
+        Map<String, List<PendingWrite>> batch;
+        int count;
+        synchronized (queueLock) {
+            if (queuedCount == 0) {
+                return;
+            }
+            batch = queued;
+            count = queuedCount;
+            queued = new LinkedHashMap<>();
+            queuedCount = 0;
+            flushScheduled = false;
+        }
+
+        long start = System.nanoTime();
+        Map<PendingWrite, Integer> results = new LinkedHashMap<>();
+        try (Connection conn = connections.create()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, List<PendingWrite>> group : batch.entrySet()) {
+                    PreparedStatement stmt = conn.prepareStatement(group.getKey());
+                    for (PendingWrite write : group.getValue()) {
+                        write.binder.bind(stmt);
+                        stmt.addBatch();
+                    }
+                    int[] counts = stmt.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        results.put(group.getValue().get(i), counts[i]);
+                    }
+                    largestBatch.accumulateAndGet(group.getValue().size(), Math::max);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            for (List<PendingWrite> writes : batch.values()) {
+                for (PendingWrite write : writes) {
+                    write.result.completeExceptionally(e);
+                }
+            }
+            throw e;
+        } finally {
+            flushTimes.record(System.nanoTime() - start);
+        }
+
+        flushes.incrementAndGet();
+        statementsWritten.addAndGet(count);
+        for (Map.Entry<PendingWrite, Integer> result : results.entrySet()) {
+            result.getKey().result.complete(result.getValue());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Batched write failed: " + e.getMessage());
+        }
+    }
+
+    // Flushes what is still queued and stops the background flusher
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    public int getQueuedCount() {
+        synchronized (queueLock) {
+            return queuedCount;
+        }
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getStatementsWritten() {
+        return statementsWritten.get();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushes.get();
+    }
+
+    public long getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    public double getMeanBatchSize() {
+        long count = flushes.get();
+        return count == 0 ? 0 : (double) statementsWritten.get() / count;
+    }
+
+    public LatencyHistogram getFlushTimeHistogram() {
+        return flushTimes;
+    }
+
+    public String describe() {
+        return String.format("flushes=%d, writes=%d, meanBatch=%.1f, largestBatch=%d, failed=%d, queued=%d, flushTime[%s]",
+            getFlushCount(), getStatementsWritten(), getMeanBatchSize(), getLargestBatch(),
+            getFailedFlushCount(), getQueuedCount(), flushTimes.summary());
+    }
+
+    private static class PendingWrite {
+        private final DatabaseConnection.StatementBinder binder;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        PendingWrite(DatabaseConnection.StatementBinder binder) {
+            this.binder = binder;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size Bloom filter over strings. mightContain is never false for a value that was added,
+// and is true for a value that was not with about the false positive rate it was sized for.
+// Bits are set with CAS, so adds and lookups may run on any thread without locking.
+public class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+    }
+
+    public void add(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0
+                && !words.compareAndSet(word, current, current | mask)) {
+                // another thread changed the word, retry
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // Double hashing: probe i is h1 + i * h2, folded into the bit range
+    private long index(int combined) {
+        return (combined & 0x7fffffffL) % bitCount;
+    }
+
+    // FNV-1a over the UTF-16 chars, then the MurmurHash3 finalizer to spread the high bits
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -3,6 +3,7 @@ public class Book {
     private String isbn;
     private String title;
     private String author;
+    private String category;
     private String publisher;
     private int publicationYear;
     private int quantity;
@@ -22,11 +23,25 @@ public class Book {
         this.isActive = isActive;
     }
 
+    public Book(int id, String isbn, String title, String author, String category,
+                int quantity, int availableQuantity, boolean isActive) {
+        this.id = id;
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+        this.category = category;
+        this.quantity = quantity;
+        this.availableQuantity = availableQuantity;
+        this.isActive = isActive;
+    }
+
     // Getters and Setters
     public int getId() { return id; }
     public String getIsbn() { return isbn; }
     public String getTitle() { return title; }
     public String getAuthor() { return author; }
+    public String getCategory() { return category; }
+    public int getQuantity() { return quantity; }
     public int getAvailableQuantity() { return availableQuantity; }
     public boolean isActive() { return isActive; }
 }
@@ -0,0 +1,192 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Process-wide cache of the active catalog, indexed by book_id and isbn. Loaded on first use,
+// then kept current by routing book writes through here and by re-reading the one book after a
+// borrow or return commits, so opening a book screen does not re-read the table.
+// Book objects are immutable; a change replaces the cached instance. Every change is also passed
+// on to CatalogSnapshot, which serves very large catalogs without loading them here.
+public class BookCatalog {
+    private static final Map<Integer, Book> byId = new ConcurrentSkipListMap<>();
+    private static final Map<String, Book> byIsbn = new ConcurrentHashMap<>();
+    private static final CatalogSearchIndex searchIndex = new CatalogSearchIndex();
+    private static volatile boolean loaded = false;
+
+    private BookCatalog() {
+    }
+
+    // Active books in book_id order
+    public static List<Book> active() throws SQLException {
+        ensureLoaded();
+        return new ArrayList<>(byId.values());
+    }
+
+    // Active books with at least one copy on the shelf
+    public static List<Book> available() throws SQLException {
+        ensureLoaded();
+        List<Book> books = new ArrayList<>();
+        for (Book book : byId.values()) {
+            if (book.getAvailableQuantity() > 0) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    // Active books with a word starting with each word of the text, best matches first.
+    // Answered from the in-memory index; an empty text returns every book in book_id order.
+    public static List<Book> search(String text, boolean availableOnly) throws SQLException {
+        ensureLoaded();
+        List<Integer> ids = searchIndex.search(text);
+        if (ids == null) {
+            return availableOnly ? available() : active();
+        }
+        List<Book> books = new ArrayList<>();
+        for (Integer id : ids) {
+            Book book = byId.get(id);
+            if (book != null && (!availableOnly || book.getAvailableQuantity() > 0)) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    // A respelling of the text for a search that found nothing, checked against the words of titles
+    // and author names ("tolkein" -> "tolkien"); null when no respelling finds anything either
+    public static String suggest(String text, boolean availableOnly) throws SQLException {
+        ensureLoaded();
+        String corrected = searchIndex.suggest(text);
+        if (corrected == null || search(corrected, availableOnly).isEmpty()) {
+            return null;
+        }
+        return corrected;
+    }
+
+    // Whether the book would be among the results of a search for the text: search() above, or
+    // BookRepository.searchAvailable() while the catalog is served from a snapshot. Lets a screen
+    // narrow its last results as the user keeps typing instead of searching again.
+    public static boolean matches(Book book, String text) {
+        if (!CatalogSnapshot.isEnabled()) {
+            return CatalogSearchIndex.matches(book, text);
+        }
+        String needle = text.toLowerCase(Locale.ROOT);
+        return contains(book.getTitle(), needle) || contains(book.getAuthor(), needle)
+            || contains(book.getIsbn(), needle) || contains(book.getCategory(), needle);
+    }
+
+    private static boolean contains(String value, String needle) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    public static Book get(int bookId) throws SQLException {
+        ensureLoaded();
+        return byId.get(bookId);
+    }
+
+    public static Book getByIsbn(String isbn) throws SQLException {
+        ensureLoaded();
+        return isbn != null ? byIsbn.get(isbn) : null;
+    }
+
+    public static Book insert(String title, String author, String category, int quantity, String isbn)
+            throws SQLException {
+        int bookId = BookRepository.insert(title, author, category, quantity, isbn);
+        LibraryStats.bookAdded();
+        return reload(bookId);
+    }
+
+    public static boolean update(int bookId, String title, String author, String category, int quantity)
+            throws SQLException {
+        boolean updated = BookRepository.update(bookId, title, author, category, quantity);
+        // available_quantity is derived in SQL, so take the stored row rather than recomputing it here
+        reload(bookId);
+        return updated;
+    }
+
+    public static boolean deactivate(int bookId) throws SQLException {
+        boolean deactivated = BookRepository.deactivate(bookId);
+        if (deactivated) {
+            LibraryStats.bookRemoved();
+        }
+        synchronized (BookCatalog.class) {
+            remove(byId.get(bookId));
+        }
+        CatalogSnapshot.bookChanged(bookId, null);
+        return deactivated;
+    }
+
+    // Re-reads one book, e.g. after the database reported it unavailable while the cache disagreed
+    public static Book reload(int bookId) throws SQLException {
+        Book book = BookRepository.findById(bookId);
+        CatalogSnapshot.bookChanged(bookId, book);
+        synchronized (BookCatalog.class) {
+            remove(byId.get(bookId));
+            if (book != null && book.isActive()) {
+                put(book);
+                return book;
+            }
+            return null;
+        }
+    }
+
+    // Re-reads one book changed by another client; nothing to do until the catalog or snapshot is in use
+    public static void refresh(int bookId) throws SQLException {
+        if (loaded) {
+            reload(bookId);
+        } else if (CatalogSnapshot.isEnabled()) {
+            CatalogSnapshot.bookChanged(bookId, BookRepository.findById(bookId));
+        }
+    }
+
+    // Drops everything; the next read loads the table again, and the snapshot is rewritten
+    public static void invalidate() {
+        synchronized (BookCatalog.class) {
+            loaded = false;
+            byId.clear();
+            byIsbn.clear();
+            searchIndex.clear();
+        }
+        CatalogSnapshot.invalidate();
+    }
+
+    private static void ensureLoaded() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        synchronized (BookCatalog.class) {
+            if (loaded) {
+                return;
+            }
+            for (Book book : BookRepository.findActive()) {
+                put(book);
+            }
+            loaded = true;
+        }
+    }
+
+    private static void put(Book book) {
+        DataVersions.bump(DataVersions.Domain.BOOKS);
+        byId.put(book.getId(), book);
+        if (book.getIsbn() != null) {
+            byIsbn.put(book.getIsbn(), book);
+        }
+        searchIndex.add(book);
+    }
+
+    private static void remove(Book book) {
+        if (book == null) {
+            return;
+        }
+        DataVersions.bump(DataVersions.Domain.BOOKS);
+        byId.remove(book.getId());
+        if (book.getIsbn() != null) {
+            byIsbn.remove(book.getIsbn(), book);
+        }
+        searchIndex.remove(book);
+    }
+}
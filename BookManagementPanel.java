@@ -3,7 +3,7 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
 
-public class BookManagementPanel extends JPanel {
+public class BookManagementPanel extends JPanel implements PanelRegistry.Refreshable {
     private int userId;
     private boolean isDarkMode;
     private JTable booksTable;
@@ -12,8 +12,8 @@ public class BookManagementPanel extends JPanel {
     private Color darkBackground = new Color(33, 33, 33);
     private Color lightBackground = new Color(242, 242, 242);
 
-    public BookManagementPanel(int userId, boolean isDarkMode) {
-        this.userId = userId;
+    public BookManagementPanel(Session session, boolean isDarkMode) {
+        this.userId = session.getUserId();
         this.isDarkMode = isDarkMode;
         setLayout(new BorderLayout(10, 10));
         setBackground(isDarkMode ? darkBackground : lightBackground);
@@ -110,50 +110,44 @@ public class BookManagementPanel extends JPanel {
         return button;
     }
 
+    @Override
+    public void refresh() {
+        loadBooks();
+    }
+
+    // The first read may load the whole catalog, so it runs on the query threads
     private void loadBooks() {
-        tableModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String sql = "SELECT * FROM books WHERE is_active = 1";
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Object[] row = {
-                        rs.getInt("book_id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("category"),
-                        rs.getInt("quantity"),
-                        rs.getInt("available_quantity")
-                    };
-                    tableModel.addRow(row);
-                }
+        DatabaseConnection.onEdt(DatabaseConnection.supply(BookCatalog::active), books -> {
+            tableModel.setRowCount(0);
+            for (Book book : books) {
+                Object[] row = {
+                    book.getId(),
+                    book.getTitle(),
+                    book.getAuthor(),
+                    book.getCategory(),
+                    book.getQuantity(),
+                    book.getAvailableQuantity()
+                };
+                tableModel.addRow(row);
             }
-        } catch (SQLException ex) {
-            showError("Error loading books: " + ex.getMessage());
-        }
+        }, ex -> showError("Error loading books: " + ex.getMessage()));
     }
 
     private void addBook() {
         if (!validateInputs()) return;
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String sql = "INSERT INTO books (title, author, category, quantity, available_quantity, isbn, is_active) VALUES (?, ?, ?, ?, ?, ?, 1)";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                int quantity = Integer.parseInt(quantityField.getText().trim());
-                stmt.setString(1, titleField.getText().trim());
-                stmt.setString(2, authorField.getText().trim());
-                stmt.setString(3, categoryField.getText().trim());
-                stmt.setInt(4, quantity);
-                stmt.setInt(5, quantity);
-                stmt.setString(6, isbnField.getText().trim());
-                
-                stmt.executeUpdate();
-                showSuccess("Book added successfully");
-                clearFields();
-                loadBooks();
-            }
+            int quantity = Integer.parseInt(quantityField.getText().trim());
+            BookCatalog.insert(
+                titleField.getText().trim(),
+                authorField.getText().trim(),
+                categoryField.getText().trim(),
+                quantity,
+                isbnField.getText().trim()
+            );
+            showSuccess("Book added successfully");
+            clearFields();
+            loadBooks();
         } catch (SQLException ex) {
             if (ex.getMessage().contains("Duplicate entry")) {
                 showError("A book with this ISBN already exists");
@@ -175,27 +169,17 @@ public class BookManagementPanel extends JPanel {
         if (!validateInputs()) return;
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String sql = "UPDATE books SET title = ?, author = ?, category = ?, quantity = ?, " +
-                        "available_quantity = available_quantity + (? - quantity) WHERE book_id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                int bookId = (Integer) tableModel.getValueAt(row, 0);
-                int newQuantity = Integer.parseInt(quantityField.getText().trim());
-                
-                stmt.setString(1, titleField.getText().trim());
-                stmt.setString(2, authorField.getText().trim());
-                stmt.setString(3, categoryField.getText().trim());
-                stmt.setInt(4, newQuantity);
-                stmt.setInt(5, newQuantity);
-                stmt.setInt(6, bookId);
-                
-                int result = stmt.executeUpdate();
-                if (result > 0) {
-                    showSuccess("Book updated successfully");
-                    clearFields();
-                    loadBooks();
-                }
+            int bookId = (Integer) tableModel.getValueAt(row, 0);
+            int newQuantity = Integer.parseInt(quantityField.getText().trim());
+
+            if (BookCatalog.update(bookId,
+                    titleField.getText().trim(),
+                    authorField.getText().trim(),
+                    categoryField.getText().trim(),
+                    newQuantity)) {
+                showSuccess("Book updated successfully");
+                clearFields();
+                loadBooks();
             }
         } catch (SQLException ex) {
             showError("Error updating book: " + ex.getMessage());
@@ -216,18 +200,11 @@ public class BookManagementPanel extends JPanel {
 
         if (confirm == JOptionPane.YES_OPTION) {
             try {
-                Connection conn = DatabaseConnection.getConnection();
-                String sql = "UPDATE books SET is_active = 0 WHERE book_id = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    int bookId = (Integer) tableModel.getValueAt(row, 0);
-                    stmt.setInt(1, bookId);
-                    
-                    int result = stmt.executeUpdate();
-                    if (result > 0) {
-                        showSuccess("Book deleted successfully");
-                        clearFields();
-                        loadBooks();
-                    }
+                int bookId = (Integer) tableModel.getValueAt(row, 0);
+                if (BookCatalog.deactivate(bookId)) {
+                    showSuccess("Book deleted successfully");
+                    clearFields();
+                    loadBooks();
                 }
             } catch (SQLException ex) {
                 showError("Error deleting book: " + ex.getMessage());
@@ -0,0 +1,98 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// All book queries in one place. Rows are read by position in COLUMNS order, so no column
+// label lookups happen per row.
+public class BookRepository {
+    static final String COLUMNS =
+        "book_id, isbn, title, author, category, quantity, available_quantity, is_active";
+
+    static Book map(ResultSet rs) throws SQLException {
+        return new Book(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getInt(6),
+            rs.getInt(7),
+            rs.getBoolean(8)
+        );
+    }
+
+    public static List<Book> findActive() throws SQLException {
+        return DatabaseConnection.queryList(
+            "SELECT " + COLUMNS + " FROM books WHERE is_active = true",
+            null, BookRepository::map);
+    }
+
+    public static List<Book> findAvailable() throws SQLException {
+        return DatabaseConnection.queryList(
+            "SELECT " + COLUMNS + " FROM books WHERE is_active = true AND available_quantity > 0",
+            null, BookRepository::map);
+    }
+
+    // Title, author, ISBN or category containing the text, available copies only
+    public static QueryFuture<List<Book>> searchAvailable(String text) {
+        String pattern = "%" + text + "%";
+        return DatabaseConnection.query(
+            "SELECT " + COLUMNS + " FROM books WHERE is_active = true AND available_quantity > 0 " +
+            "AND (title LIKE ? OR author LIKE ? OR isbn LIKE ? OR category LIKE ?)",
+            stmt -> bindPattern(stmt, pattern),
+            BookRepository::map);
+    }
+
+    public static Book findById(int bookId) throws SQLException {
+        return DatabaseConnection.queryFirst(
+            "SELECT " + COLUMNS + " FROM books WHERE book_id = ?",
+            stmt -> stmt.setInt(1, bookId),
+            BookRepository::map);
+    }
+
+    // Returns the new book_id
+    public static int insert(String title, String author, String category, int quantity, String isbn)
+            throws SQLException {
+        return DatabaseConnection.insert(
+            "INSERT INTO books (title, author, category, quantity, available_quantity, isbn, is_active) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 1)",
+            stmt -> {
+                stmt.setString(1, title);
+                stmt.setString(2, author);
+                stmt.setString(3, category);
+                stmt.setInt(4, quantity);
+                stmt.setInt(5, quantity);
+                stmt.setString(6, isbn);
+            });
+    }
+
+    // Changing the total quantity moves the available count by the same amount
+    public static boolean update(int bookId, String title, String author, String category, int quantity)
+            throws SQLException {
+        return DatabaseConnection.update(
+            // MySQL assigns left to right, so available_quantity must still see the old quantity
+            "UPDATE books SET available_quantity = available_quantity + (? - quantity), " +
+            "title = ?, author = ?, category = ?, quantity = ? WHERE book_id = ?",
+            stmt -> {
+                stmt.setInt(1, quantity);
+                stmt.setString(2, title);
+                stmt.setString(3, author);
+                stmt.setString(4, category);
+                stmt.setInt(5, quantity);
+                stmt.setInt(6, bookId);
+            }) > 0;
+    }
+
+    public static boolean deactivate(int bookId) throws SQLException {
+        return DatabaseConnection.update(
+            "UPDATE books SET is_active = 0 WHERE book_id = ?",
+            stmt -> stmt.setInt(1, bookId)) > 0;
+    }
+
+    private static void bindPattern(PreparedStatement stmt, String pattern) throws SQLException {
+        for (int i = 1; i <= 4; i++) {
+            stmt.setString(i, pattern);
+        }
+    }
+}
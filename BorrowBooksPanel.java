@@ -1,17 +1,25 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class BorrowBooksPanel extends JPanel implements PanelRegistry.Refreshable {
+    private static final int HAS_OVERDUE = -1;
 
-public class BorrowBooksPanel extends JPanel {
     private int userId;
+    private StudentLoanState loanState;
     private JTable bookTable;
-    private DefaultTableModel tableModel;
+    private CatalogTableModel tableModel;
     private JTextField searchField;
+    private JButton suggestionButton;
+    private JLabel overdueHint;
+    private IncrementalSearch<Book> search;
 
-    public BorrowBooksPanel(int userId) {
-        this.userId = userId;
+    public BorrowBooksPanel(StudentLoanState loanState) {
+        this.loanState = loanState;
+        this.userId = loanState.getUserId();
         setLayout(new BorderLayout());
         
         // Create search panel
@@ -28,92 +36,107 @@ public class BorrowBooksPanel extends JPanel {
         JButton borrowButton = new JButton("Borrow Selected Book");
         borrowButton.addActionListener(e -> borrowBook());
         buttonPanel.add(borrowButton);
+        overdueHint = new JLabel("You have overdue books. Please return them first.");
+        overdueHint.setForeground(Color.RED);
+        buttonPanel.add(overdueHint);
         add(buttonPanel, BorderLayout.SOUTH);
         
         // Load available books
         loadAvailableBooks();
+        updateOverdueHint();
     }
 
     private JPanel createSearchPanel() {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         panel.add(new JLabel("Search:"));
         searchField = new JTextField(30);
-        searchField.addActionListener(e -> searchBooks());
+        search = new IncrementalSearch<>(searchField, this::findBooks, BookCatalog::matches,
+            this::loadAvailableBooks,
+            this::showResults,
+            e -> {
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error searching books: " + e.getMessage());
+            });
+        searchField.addActionListener(e -> search.runNow());
         panel.add(searchField);
         
         JButton searchButton = new JButton("Search");
-        searchButton.addActionListener(e -> searchBooks());
+        searchButton.addActionListener(e -> search.runNow());
         panel.add(searchButton);
+
+        // Offered when a search finds nothing but a respelling of it would
+        suggestionButton = new JButton();
+        suggestionButton.setBorderPainted(false);
+        suggestionButton.setContentAreaFilled(false);
+        suggestionButton.setForeground(new Color(70, 130, 180));
+        suggestionButton.setVisible(false);
+        suggestionButton.addActionListener(e -> {
+            searchField.setText(e.getActionCommand());
+            search.runNow();
+        });
+        panel.add(suggestionButton);
         
         return panel;
     }
 
     private void createBookTable() {
-        String[] columns = {"ID", "ISBN", "Title", "Author", "Available Quantity"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new CatalogTableModel(new CatalogTableModel.Column[]{
+            CatalogTableModel.Column.ID, CatalogTableModel.Column.ISBN, CatalogTableModel.Column.TITLE,
+            CatalogTableModel.Column.AUTHOR, CatalogTableModel.Column.AVAILABLE});
         bookTable = new JTable(tableModel);
     }
 
-    private void loadAvailableBooks() {
-        tableModel.setRowCount(0);
+    @Override
+    public void refresh() {
+        search.reset();
+        search.runNow();
+        updateOverdueHint();
+    }
+
+    // Only a hint from the loans in memory; borrowBook checks the database itself
+    private void updateOverdueHint() {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT * FROM books WHERE available_quantity > 0 AND is_active = true";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("isbn"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getInt("available_quantity")
-                };
-                tableModel.addRow(row);
-            }
+            overdueHint.setVisible(loanState.hasOverdue());
         } catch (SQLException e) {
             e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading books: " + e.getMessage());
+            overdueHint.setVisible(false);
         }
     }
 
-    private void searchBooks() {
-        String searchTerm = searchField.getText().trim();
-        tableModel.setRowCount(0);
-        
+    private void loadAvailableBooks() {
+        suggestionButton.setVisible(false);
+        tableModel.showAvailable(e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error loading books: " + e.getMessage());
+        });
+    }
+
+    private void showResults(List<Book> books) {
+        tableModel.setBooks(books);
+        suggestionButton.setVisible(false);
+        if (!books.isEmpty() || CatalogSnapshot.isEnabled()) {
+            return;
+        }
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT * FROM books WHERE (title LIKE ? OR author LIKE ? OR isbn LIKE ?) " +
-                          "AND available_quantity > 0 AND is_active = true";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("isbn"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getInt("available_quantity")
-                };
-                tableModel.addRow(row);
+            String suggestion = BookCatalog.suggest(search.getShownText(), true);
+            if (suggestion != null) {
+                suggestionButton.setText("Did you mean: " + suggestion + "?");
+                suggestionButton.setActionCommand(suggestion);
+                suggestionButton.setVisible(true);
             }
         } catch (SQLException e) {
             e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error searching books: " + e.getMessage());
         }
     }
 
+    private CompletableFuture<List<Book>> findBooks(String text) {
+        if (CatalogSnapshot.isEnabled()) {
+            // Snapshot catalogs are too large to index in memory, so they are searched in the database
+            return BookRepository.searchAvailable(text);
+        }
+        return DatabaseConnection.supply(() -> BookCatalog.search(text, true));
+    }
+
     private void borrowBook() {
         int selectedRow = bookTable.getSelectedRow();
         if (selectedRow < 0) {
@@ -121,56 +144,72 @@ public class BorrowBooksPanel extends JPanel {
             return;
         }
 
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // Check if user has any overdue books
-            String overdueCheck = "SELECT COUNT(*) FROM book_borrowings WHERE user_id = ? " +
-                                "AND status = 'BORROWED' AND due_date < CURRENT_DATE";
-            PreparedStatement checkStmt = conn.prepareStatement(overdueCheck);
-            checkStmt.setInt(1, userId);
-            ResultSet checkRs = checkStmt.executeQuery();
-            checkRs.next();
-            if (checkRs.getInt(1) > 0) {
-                JOptionPane.showMessageDialog(this, "You have overdue books. Please return them first.");
-                return;
-            }
+        int bookId = tableModel.getBookId(selectedRow);
+        String bookTitle = tableModel.getTitle(selectedRow);
+        CompletableFuture<Integer> borrowing = DatabaseConnection.supply(() -> {
+            Integer id = DatabaseConnection.inTransaction(conn -> {
+                // Checked here rather than from the loans in memory, which may be minutes old
+                PreparedStatement overdueStmt = conn.prepareStatement(
+                    "SELECT 1 FROM book_borrowings WHERE user_id = ? AND status = 'BORROWED' " +
+                    "AND due_date < CURRENT_TIMESTAMP LIMIT 1"
+                );
+                overdueStmt.setInt(1, userId);
+                try (ResultSet overdue = overdueStmt.executeQuery()) {
+                    if (overdue.next()) {
+                        return HAS_OVERDUE;
+                    }
+                }
 
-            // Start transaction
-            conn.setAutoCommit(false);
-            try {
                 // Update available quantity
                 String updateBook = "UPDATE books SET available_quantity = available_quantity - 1 " +
                                   "WHERE book_id = ? AND available_quantity > 0";
                 PreparedStatement updateStmt = conn.prepareStatement(updateBook);
-                int bookId = (Integer) bookTable.getValueAt(selectedRow, 0);
                 updateStmt.setInt(1, bookId);
-                int updated = updateStmt.executeUpdate();
-
-                if (updated > 0) {
-                    // Create borrowing record
-                    String insertBorrowing = "INSERT INTO book_borrowings (book_id, user_id, borrow_date, due_date, status) " +
-                                           "VALUES (?, ?, CURRENT_DATE, DATE_ADD(CURRENT_DATE, INTERVAL 14 DAY), 'BORROWED')";
-                    PreparedStatement borrowStmt = conn.prepareStatement(insertBorrowing);
-                    borrowStmt.setInt(1, bookId);
-                    borrowStmt.setInt(2, userId);
-                    borrowStmt.executeUpdate();
-
-                    conn.commit();
-                    JOptionPane.showMessageDialog(this, "Book borrowed successfully!");
-                    loadAvailableBooks();
-                } else {
-                    throw new SQLException("Book not available");
+                if (updateStmt.executeUpdate() == 0) {
+                    return null;
+                }
+
+                // Create borrowing record
+                PreparedStatement borrowStmt = conn.prepareStatement(
+                    "INSERT INTO book_borrowings (book_id, user_id, borrow_date, due_date, status) " +
+                    "VALUES (?, ?, CURRENT_DATE, DATE_ADD(CURRENT_DATE, INTERVAL 14 DAY), 'BORROWED')",
+                    Statement.RETURN_GENERATED_KEYS
+                );
+                borrowStmt.setInt(1, bookId);
+                borrowStmt.setInt(2, userId);
+                borrowStmt.executeUpdate();
+                try (ResultSet keys = borrowStmt.getGeneratedKeys()) {
+                    keys.next();
+                    return keys.getInt(1);
                 }
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
+            });
+            if (id == null || id > 0) {
+                // Take the stored count, whether it was stale or just changed. The change feed
+                // re-reads the same row later, which leaves it as is.
+                BookCatalog.refresh(bookId);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error borrowing book: " + e.getMessage());
-        }
+            return id;
+        });
+
+        DatabaseConnection.onEdt(borrowing, borrowingId -> {
+            if (borrowingId != null && borrowingId == HAS_OVERDUE) {
+                loanState.invalidate();
+                updateOverdueHint();
+                JOptionPane.showMessageDialog(this, "You have overdue books. Please return them first.");
+                return;
+            }
+            if (borrowingId == null) {
+                JOptionPane.showMessageDialog(this, "Book not available");
+                refresh();
+                return;
+            }
+            LibraryStats.loanOpened();
+            loanState.loanOpened(borrowingId, bookId, bookTitle);
+            JOptionPane.showMessageDialog(this, "Book borrowed successfully!");
+            refresh();
+        }, error -> {
+            error.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error borrowing book: " + error.getMessage());
+        });
     }
 }
\ No newline at end of file
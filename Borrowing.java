@@ -0,0 +1,61 @@
+import java.sql.Timestamp;
+
+public class Borrowing {
+    private int id;
+    private int bookId;
+    private int userId;
+    private String bookTitle;
+    private Timestamp borrowDate;
+    private Timestamp dueDate;
+    private Timestamp returnDate;
+    private String status;
+    private double fineAmount;
+    private boolean finePaid;
+
+    public Borrowing(int id, int bookId, int userId, String bookTitle, Timestamp borrowDate,
+                     Timestamp dueDate, Timestamp returnDate, String status, double fineAmount, boolean finePaid) {
+        this.id = id;
+        this.bookId = bookId;
+        this.userId = userId;
+        this.bookTitle = bookTitle;
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+        this.status = status;
+        this.fineAmount = fineAmount;
+        this.finePaid = finePaid;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public int getBookId() { return bookId; }
+    public int getUserId() { return userId; }
+    public String getBookTitle() { return bookTitle; }
+    public Timestamp getBorrowDate() { return borrowDate; }
+    public Timestamp getDueDate() { return dueDate; }
+    public Timestamp getReturnDate() { return returnDate; }
+    public String getStatus() { return status; }
+    public double getFineAmount() { return fineAmount; }
+    public boolean isFinePaid() { return finePaid; }
+
+    public boolean isActive() {
+        return "BORROWED".equals(status);
+    }
+
+    public Borrowing withDueDate(Timestamp dueDate) {
+        return new Borrowing(id, bookId, userId, bookTitle, borrowDate, dueDate, returnDate, status, fineAmount, finePaid);
+    }
+
+    public Borrowing returnedAt(Timestamp returnDate) {
+        return new Borrowing(id, bookId, userId, bookTitle, borrowDate, dueDate, returnDate, "RETURNED", fineAmount, finePaid);
+    }
+
+    // Date part only, as the tables display it
+    public static java.sql.Date dateOf(Timestamp timestamp) {
+        return timestamp != null ? new java.sql.Date(timestamp.getTime()) : null;
+    }
+
+    public boolean isOverdue() {
+        return "BORROWED".equals(status) && dueDate != null && dueDate.getTime() < System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,98 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// All loan queries in one place, mapped by position in COLUMNS order (joined with the book title).
+// A loan is overdue while it is BORROWED and its due date has passed.
+public class BorrowingRepository {
+    public static final int LOAN_DAYS = 14;
+
+    static final String COLUMNS =
+        "bb.borrowing_id, bb.book_id, bb.user_id, b.title, bb.borrow_date, bb.due_date, " +
+        "bb.return_date, bb.status, bb.fine_amount, bb.fine_paid";
+    private static final String FROM =
+        " FROM book_borrowings bb JOIN books b ON bb.book_id = b.book_id ";
+
+    static Borrowing map(ResultSet rs) throws SQLException {
+        return new Borrowing(
+            rs.getInt(1),
+            rs.getInt(2),
+            rs.getInt(3),
+            rs.getString(4),
+            rs.getTimestamp(5),
+            rs.getTimestamp(6),
+            rs.getTimestamp(7),
+            rs.getString(8),
+            rs.getDouble(9),
+            rs.getBoolean(10)
+        );
+    }
+
+    // Checks eligibility and records the loan in one round trip through sp_checkout.
+    // Rule violations come back as result codes; only real failures throw.
+    public static CheckoutResult checkout(int userId, int bookId) throws SQLException {
+        // The procedure commits or rolls back itself, so it is only retried, not wrapped
+        return DatabaseConnection.getTransactions().withRetry(conn -> {
+            // A plain prepared CALL: the outcome is the procedure's result row, read with the call itself
+            try (PreparedStatement call = conn.prepareStatement("CALL sp_checkout(?, ?, ?)")) {
+                call.setInt(1, userId);
+                call.setInt(2, bookId);
+                call.setInt(3, LOAN_DAYS);
+                try (ResultSet rs = call.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("sp_checkout returned no result");
+                    }
+                    return CheckoutResult.fromCode(rs.getString(1));
+                }
+            }
+        });
+    }
+
+    // Books the user currently holds, soonest due first
+    public static List<Borrowing> findActiveByUser(int userId) throws SQLException {
+        return DatabaseConnection.queryList(
+            "SELECT " + COLUMNS + FROM + "WHERE bb.user_id = ? AND bb.status = 'BORROWED' ORDER BY bb.due_date",
+            stmt -> stmt.setInt(1, userId),
+            BorrowingRepository::map);
+    }
+
+    // Every loan of the user, newest first
+    public static List<Borrowing> findHistoryByUser(int userId) throws SQLException {
+        return DatabaseConnection.queryList(
+            "SELECT " + COLUMNS + FROM + "WHERE bb.user_id = ? ORDER BY bb.borrow_date DESC",
+            stmt -> stmt.setInt(1, userId),
+            BorrowingRepository::map);
+    }
+
+    public static int countActive() throws SQLException {
+        return DatabaseConnection.queryInt(
+            "SELECT COUNT(*) FROM book_borrowings WHERE status = 'BORROWED'", null);
+    }
+
+    public static int countOverdue() throws SQLException {
+        return DatabaseConnection.queryInt(
+            "SELECT COUNT(*) FROM book_borrowings WHERE status = 'BORROWED' AND due_date < CURRENT_TIMESTAMP", null);
+    }
+
+    public static int countActiveByUser(int userId) throws SQLException {
+        return DatabaseConnection.queryInt(
+            "SELECT COUNT(*) FROM book_borrowings WHERE user_id = ? AND status = 'BORROWED'",
+            stmt -> stmt.setInt(1, userId));
+    }
+
+    public static int countOverdueByUser(int userId) throws SQLException {
+        return DatabaseConnection.queryInt(
+            "SELECT COUNT(*) FROM book_borrowings " +
+            "WHERE user_id = ? AND status = 'BORROWED' AND due_date < CURRENT_TIMESTAMP",
+            stmt -> stmt.setInt(1, userId));
+    }
+
+    public static double outstandingFines(int userId) throws SQLException {
+        Double total = DatabaseConnection.queryFirst(
+            "SELECT COALESCE(SUM(fine_amount), 0) FROM book_borrowings WHERE user_id = ? AND fine_paid = false",
+            stmt -> stmt.setInt(1, userId),
+            rs -> rs.getDouble(1));
+        return total != null ? total : 0;
+    }
+}
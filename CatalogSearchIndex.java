@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index over the words of each book's title, author, category and isbn, kept by
+// BookCatalog alongside its maps. A query matches books that contain, for every query word,
+// some word starting with it, so "tolk ring" finds "The Lord of the Rings" by J.R.R. Tolkien.
+// Results are ranked by where the words matched (title and isbn over author over category)
+// and whether they matched whole words or only prefixes. Title and author words are also kept in
+// a TrigramIndex to suggest a spelling when a query finds nothing.
+class CatalogSearchIndex {
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int CATEGORY = 4;
+    private static final int ISBN = 8;
+
+    // word -> book_id -> fields the word occurs in
+    private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<Integer, Book> indexed = new HashMap<>();
+    private final TrigramIndex spelling = new TrigramIndex();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void add(Book book) {
+        lock.writeLock().lock();
+        try {
+            Book old = indexed.put(book.getId(), book);
+            if (old != null) {
+                if (sameText(old, book)) {
+                    // Only the copy counts changed, as after every borrow and return
+                    return;
+                }
+                unindex(old);
+            }
+            index(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Book book) {
+        lock.writeLock().lock();
+        try {
+            Book old = indexed.remove(book.getId());
+            if (old != null) {
+                unindex(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            indexed.clear();
+            spelling.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of the books matching every word of the query, best first; null when the query has no words
+    List<Integer> search(String query) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Integer, Integer>> matches = new ArrayList<>();
+            for (String term : terms) {
+                Map<Integer, Integer> scores = match(term);
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                matches.add(scores);
+            }
+            // Intersect starting from the rarest term so the candidate set only shrinks
+            matches.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            Map<Integer, Integer> total = new HashMap<>(matches.get(0));
+            for (int i = 1; i < matches.size() && !total.isEmpty(); i++) {
+                Map<Integer, Integer> next = matches.get(i);
+                total.keySet().retainAll(next.keySet());
+                for (Map.Entry<Integer, Integer> entry : total.entrySet()) {
+                    entry.setValue(entry.getValue() + next.get(entry.getKey()));
+                }
+            }
+
+            String phrase = query.trim().toLowerCase(Locale.ROOT);
+            List<Integer> ids = new ArrayList<>(total.keySet());
+            Map<Integer, Integer> ranked = new HashMap<>();
+            for (Integer id : ids) {
+                Book book = indexed.get(id);
+                int score = total.get(id);
+                // A title that starts with the query as typed beats one that merely contains the words
+                if (book.getTitle() != null && book.getTitle().toLowerCase(Locale.ROOT).startsWith(phrase)) {
+                    score += 16;
+                }
+                ranked.put(id, score);
+            }
+            ids.sort((a, b) -> {
+                int byScore = Integer.compare(ranked.get(b), ranked.get(a));
+                if (byScore != 0) {
+                    return byScore;
+                }
+                int byLength = Integer.compare(titleLength(a), titleLength(b));
+                return byLength != 0 ? byLength : Integer.compare(a, b);
+            });
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The query with every word that starts no indexed word replaced by the closest title or author
+    // word; null when nothing needed replacing or some word has no close spelling
+    String suggest(String query) {
+        List<String> terms = words(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<String> corrected = new ArrayList<>();
+            boolean changed = false;
+            for (String term : terms) {
+                if (!postings.subMap(term, true, term + Character.MAX_VALUE, true).isEmpty()) {
+                    corrected.add(term);
+                    continue;
+                }
+                String closest = spelling.closest(term);
+                if (closest == null) {
+                    return null;
+                }
+                corrected.add(closest);
+                changed = true;
+            }
+            return changed ? String.join(" ", corrected) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Whether the book matches every word of the query, without consulting the index
+    static boolean matches(Book book, String query) {
+        Map<String, Integer> fields = fieldsByWord(book);
+        for (String term : words(query)) {
+            boolean found = false;
+            for (String word : fields.keySet()) {
+                if (word.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Best score per book over all words starting with the term
+    private Map<Integer, Integer> match(String term) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        NavigableMap<String, Map<Integer, Integer>> range =
+            postings.subMap(term, true, term + Character.MAX_VALUE, true);
+        for (Map.Entry<String, Map<Integer, Integer>> word : range.entrySet()) {
+            int multiplier = word.getKey().equals(term) ? 2 : 1;
+            for (Map.Entry<Integer, Integer> posting : word.getValue().entrySet()) {
+                scores.merge(posting.getKey(), weight(posting.getValue()) * multiplier, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private static int weight(int fields) {
+        if ((fields & (TITLE | ISBN)) != 0) {
+            return 4;
+        }
+        return (fields & AUTHOR) != 0 ? 2 : 1;
+    }
+
+    private int titleLength(int id) {
+        Book book = indexed.get(id);
+        return book.getTitle() != null ? book.getTitle().length() : 0;
+    }
+
+    private void index(Book book) {
+        for (Map.Entry<String, Integer> word : fieldsByWord(book).entrySet()) {
+            postings.computeIfAbsent(word.getKey(), k -> new HashMap<>()).put(book.getId(), word.getValue());
+            if ((word.getValue() & (TITLE | AUTHOR)) != 0) {
+                spelling.add(word.getKey());
+            }
+        }
+    }
+
+    private void unindex(Book book) {
+        for (Map.Entry<String, Integer> word : fieldsByWord(book).entrySet()) {
+            Map<Integer, Integer> books = postings.get(word.getKey());
+            if (books != null) {
+                books.remove(book.getId());
+                if (books.isEmpty()) {
+                    postings.remove(word.getKey());
+                }
+            }
+            if ((word.getValue() & (TITLE | AUTHOR)) != 0) {
+                spelling.remove(word.getKey());
+            }
+        }
+    }
+
+    private static Map<String, Integer> fieldsByWord(Book book) {
+        Map<String, Integer> fields = new HashMap<>();
+        addWords(fields, book.getTitle(), TITLE);
+        addWords(fields, book.getAuthor(), AUTHOR);
+        addWords(fields, book.getCategory(), CATEGORY);
+        addWords(fields, book.getIsbn(), ISBN);
+        if (book.getIsbn() != null) {
+            // Also the isbn without separators, so 978-0-441 and 9780441 both find it
+            String digits = book.getIsbn().replaceAll("[^0-9Xx]", "").toLowerCase(Locale.ROOT);
+            if (!digits.isEmpty()) {
+                fields.merge(digits, ISBN, (a, b) -> a | b);
+            }
+        }
+        return fields;
+    }
+
+    private static void addWords(Map<String, Integer> fields, String text, int field) {
+        for (String word : words(text)) {
+            fields.merge(word, field, (a, b) -> a | b);
+        }
+    }
+
+    // Lower-cased runs of letters and digits
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static boolean sameText(Book a, Book b) {
+        return equal(a.getTitle(), b.getTitle()) && equal(a.getAuthor(), b.getAuthor())
+            && equal(a.getCategory(), b.getCategory()) && equal(a.getIsbn(), b.getIsbn());
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,427 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// The active catalog as a file of fixed-width records plus a string heap, read through memory
+// mapping so a multi-million-title catalog costs the page cache rather than the Java heap.
+// Enabled by setting library.catalog.snapshotFile; the file is rewritten from the books table
+// when missing, unreadable or older than snapshotMaxAgeHours.
+//
+// Layout, big-endian:
+//   header  magic, format version, record count, reserved, written-at millis (24 bytes)
+//   records book_id, quantity, available_quantity, heap offset (long), title length (short),
+//           author length (short), isbn length, category length (bytes), 6 bytes padding;
+//           32 bytes each, sorted by book_id
+//   heap    title, author, isbn and category of each record back to back, UTF-8
+//
+// Book writes made after the file was written are kept in a small overlay (see BookCatalog),
+// which the table model consults before the mapped record. Books changed while no snapshot is
+// usable yet, because it is still being opened or rewritten, are re-read once it is.
+public class CatalogSnapshot {
+    private static final String FILE = System.getProperty("library.catalog.snapshotFile");
+    private static final long MAX_AGE_MS = Long.getLong("library.catalog.snapshotMaxAgeHours", 24) * 3_600_000L;
+
+    private static final int MAGIC = 0x4c434154; // "LCAT"
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int RECORD_SIZE = 32;
+
+    private static volatile CatalogSnapshot current;
+    private static volatile boolean failed = false;
+    private static final AtomicBoolean opening = new AtomicBoolean();
+
+    // Books changed since the snapshot was written, and books deactivated since
+    private static final Map<Integer, Book> changed = new ConcurrentHashMap<>();
+    private static final Set<Integer> removed = ConcurrentHashMap.newKeySet();
+    static final Book REMOVED = new Book(0, null, null, null, null, 0, 0, false);
+
+    // Books to re-read once the snapshot being opened or rewritten is installed
+    private static final Object overlayLock = new Object();
+    private static final Set<Integer> dirty = new HashSet<>();
+    private static boolean collecting = true;
+
+    private final ByteBuffer records;
+    private final ByteBuffer heap;
+    private final int count;
+    private final long writtenAt;
+
+    private CatalogSnapshot(ByteBuffer records, ByteBuffer heap, int count, long writtenAt) {
+        this.records = records;
+        this.heap = heap;
+        this.count = count;
+        this.writtenAt = writtenAt;
+    }
+
+    public static boolean isEnabled() {
+        return FILE != null && !failed;
+    }
+
+    // The mapped snapshot, written first if needed; null when snapshots are off or unusable.
+    // The first call may stream the whole books table into the file, and later ones wait for it,
+    // so this must not run on the event thread (CatalogTableModel reads it on a query thread).
+    public static CatalogSnapshot current() {
+        CatalogSnapshot snapshot = current;
+        if (snapshot != null || !isEnabled()) {
+            return snapshot;
+        }
+        synchronized (CatalogSnapshot.class) {
+            if (current == null && !failed) {
+                try {
+                    File file = new File(FILE);
+                    if (!file.isFile() || System.currentTimeMillis() - file.lastModified() > MAX_AGE_MS) {
+                        write(file);
+                    }
+                    try {
+                        install(open(file));
+                    } catch (IOException e) {
+                        // Truncated or from another format version
+                        write(file);
+                        install(open(file));
+                    }
+                } catch (IOException | SQLException e) {
+                    failed = true;
+                    System.err.println("Catalog snapshot disabled: " + e.getMessage());
+                }
+            }
+            return current;
+        }
+    }
+
+    public static void openInBackground() {
+        if (!isEnabled() || !opening.compareAndSet(false, true)) {
+            return;
+        }
+        Thread t = new Thread(CatalogSnapshot::current, "catalog-snapshot");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Rewrites the file from the books table and swaps it in, for when book changes may have been
+    // missed (see ChangeFeed). Readers keep the old snapshot and its overlay until the new one is in.
+    public static void invalidate() {
+        if (!isEnabled()) {
+            return;
+        }
+        Thread t = new Thread(() -> {
+            synchronized (CatalogSnapshot.class) {
+                if (current == null) {
+                    // Not opened yet; the first open reads the table or file as it is then
+                    return;
+                }
+                synchronized (overlayLock) {
+                    collecting = true;
+                }
+                try {
+                    File file = new File(FILE);
+                    write(file);
+                    install(open(file));
+                } catch (IOException | SQLException e) {
+                    // The old snapshot stays, with the changes made meanwhile in its overlay
+                    synchronized (overlayLock) {
+                        collecting = false;
+                        dirty.clear();
+                    }
+                    System.err.println("Catalog snapshot rebuild failed: " + e.getMessage());
+                }
+            }
+        }, "catalog-snapshot");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Makes the snapshot current with an empty overlay, then re-reads the books changed meanwhile
+    private static void install(CatalogSnapshot snapshot) {
+        List<Integer> reread;
+        synchronized (overlayLock) {
+            changed.clear();
+            removed.clear();
+            current = snapshot;
+            collecting = false;
+            reread = new ArrayList<>(dirty);
+            dirty.clear();
+        }
+        for (int bookId : reread) {
+            try {
+                bookChanged(bookId, BookRepository.findById(bookId));
+            } catch (SQLException e) {
+                System.err.println("Catalog snapshot could not re-read book " + bookId + ": " + e.getMessage());
+            }
+        }
+        DataVersions.bump(DataVersions.Domain.BOOKS);
+    }
+
+    // Writes the active books to the file, replacing it atomically
+    public static void write(File file) throws IOException, SQLException {
+        File tmp = new File(file.getPath() + ".tmp");
+        File heapTmp = new File(file.getPath() + ".heap.tmp");
+        int count = 0;
+        try (Connection conn = DatabaseConnection.getConnection();
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+             DataOutputStream strings = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(heapTmp), 1 << 16))) {
+            out.write(new byte[HEADER_SIZE]);
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT book_id, quantity, available_quantity, title, author, isbn, category " +
+                "FROM books WHERE is_active = true ORDER BY book_id",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Connector/J streams rows one at a time with this fetch size instead of buffering the result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            long heapOffset = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    byte[] title = utf8(rs.getString(4), Short.MAX_VALUE);
+                    byte[] author = utf8(rs.getString(5), Short.MAX_VALUE);
+                    byte[] isbn = utf8(rs.getString(6), 255);
+                    byte[] category = utf8(rs.getString(7), 255);
+                    out.writeInt(rs.getInt(1));
+                    out.writeInt(rs.getInt(2));
+                    out.writeInt(rs.getInt(3));
+                    out.writeLong(heapOffset);
+                    out.writeShort(title.length);
+                    out.writeShort(author.length);
+                    out.writeByte(isbn.length);
+                    out.writeByte(category.length);
+                    out.write(new byte[6]);
+                    strings.write(title);
+                    strings.write(author);
+                    strings.write(isbn);
+                    strings.write(category);
+                    heapOffset += title.length + author.length + isbn.length + category.length;
+                    count++;
+                }
+            }
+        }
+
+        try (FileChannel target = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE);
+             FileChannel source = FileChannel.open(heapTmp.toPath())) {
+            long position = target.size();
+            long size = source.size();
+            for (long done = 0; done < size; ) {
+                done += source.transferTo(done, size - done, target.position(position + done));
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(FORMAT).putInt(count).putInt(0).putLong(System.currentTimeMillis());
+            header.flip();
+            target.write(header, 0);
+            target.force(true);
+        } finally {
+            Files.deleteIfExists(heapTmp.toPath());
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static CatalogSnapshot open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Catalog snapshot too short: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT) {
+                throw new IOException("Not a catalog snapshot (format " + FORMAT + "): " + file);
+            }
+            int count = header.getInt(8);
+            long writtenAt = header.getLong(16);
+            long recordsSize = (long) count * RECORD_SIZE;
+            long heapSize = size - HEADER_SIZE - recordsSize;
+            if (heapSize < 0) {
+                throw new IOException("Catalog snapshot truncated: " + file);
+            }
+            if (recordsSize > Integer.MAX_VALUE || heapSize > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot larger than one mapping allows: " + file);
+            }
+            // The mappings stay valid after the channel is closed
+            MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, recordsSize);
+            MappedByteBuffer heap = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + recordsSize, heapSize);
+            return new CatalogSnapshot(records, heap, count, writtenAt);
+        }
+    }
+
+    private static byte[] utf8(String value, int maxBytes) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return bytes;
+        }
+        // Cut at a character boundary
+        int end = maxBytes;
+        while (end > 0 && (bytes[end] & 0xc0) == 0x80) {
+            end--;
+        }
+        byte[] cut = new byte[end];
+        System.arraycopy(bytes, 0, cut, 0, end);
+        return cut;
+    }
+
+    // Overlay, fed by BookCatalog after a book write commits
+
+    // The stored row of a book, or null when it is no longer active
+    public static void bookChanged(int bookId, Book book) {
+        if (!isEnabled()) {
+            return;
+        }
+        DataVersions.bump(DataVersions.Domain.BOOKS);
+        synchronized (overlayLock) {
+            if (collecting) {
+                dirty.add(bookId);
+            }
+            if (current == null) {
+                return;
+            }
+            if (book == null || !book.isActive()) {
+                changed.remove(bookId);
+                removed.add(bookId);
+            } else {
+                removed.remove(bookId);
+                changed.put(bookId, book);
+            }
+        }
+    }
+
+    // Reads
+
+    public int size() {
+        return count;
+    }
+
+    public long getWrittenAt() {
+        return writtenAt;
+    }
+
+    public int getBookId(int index) {
+        return records.getInt(index * RECORD_SIZE);
+    }
+
+    public int getQuantity(int index) {
+        return records.getInt(index * RECORD_SIZE + 4);
+    }
+
+    public int getAvailable(int index) {
+        return records.getInt(index * RECORD_SIZE + 8);
+    }
+
+    public String getTitle(int index) {
+        return string(index, 0);
+    }
+
+    public String getAuthor(int index) {
+        return string(index, 1);
+    }
+
+    public String getIsbn(int index) {
+        return string(index, 2);
+    }
+
+    public String getCategory(int index) {
+        return string(index, 3);
+    }
+
+    public Book getBook(int index) {
+        return new Book(getBookId(index), getIsbn(index), getTitle(index), getAuthor(index), getCategory(index),
+            getQuantity(index), getAvailable(index), true);
+    }
+
+    // Record index of the book, or -1; records are sorted by book_id
+    public int indexOf(int bookId) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = getBookId(mid);
+            if (id < bookId) {
+                low = mid + 1;
+            } else if (id > bookId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // The overlay entry for the record: a newer Book, REMOVED, or null to use the record as is
+    Book overlayFor(int index) {
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return null;
+        }
+        int bookId = getBookId(index);
+        return removed.contains(bookId) ? REMOVED : changed.get(bookId);
+    }
+
+    // Indexes of the records with copies on the shelf, after the overlay
+    public int[] availableIndexes() {
+        int[] indexes = new int[count];
+        int n = 0;
+        boolean overlay = !changed.isEmpty() || !removed.isEmpty();
+        for (int i = 0; i < count; i++) {
+            int available;
+            if (overlay) {
+                Book book = overlayFor(i);
+                if (book == REMOVED) {
+                    continue;
+                }
+                available = book != null ? book.getAvailableQuantity() : getAvailable(i);
+            } else {
+                available = getAvailable(i);
+            }
+            if (available > 0) {
+                indexes[n++] = i;
+            }
+        }
+        int[] result = new int[n];
+        System.arraycopy(indexes, 0, result, 0, n);
+        return result;
+    }
+
+    // Books added since the snapshot was written that have copies on the shelf
+    public List<Book> addedAvailable() {
+        List<Book> books = new ArrayList<>();
+        for (Book book : changed.values()) {
+            if (book.getAvailableQuantity() > 0 && indexOf(book.getId()) < 0) {
+                books.add(book);
+            }
+        }
+        books.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return books;
+    }
+
+    private String string(int index, int field) {
+        int base = index * RECORD_SIZE;
+        long offset = records.getLong(base + 12);
+        int[] lengths = {
+            records.getShort(base + 20) & 0xffff,
+            records.getShort(base + 22) & 0xffff,
+            records.get(base + 24) & 0xff,
+            records.get(base + 25) & 0xff
+        };
+        for (int i = 0; i < field; i++) {
+            offset += lengths[i];
+        }
+        byte[] bytes = new byte[lengths[field]];
+        heap.get((int) offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
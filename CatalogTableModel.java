@@ -0,0 +1,183 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Read-only book table backed either by a list of Book objects (search results, or the whole
+// catalog when no snapshot is configured) or by record indexes into the mapped CatalogSnapshot.
+// Snapshot rows are decoded only when a cell is painted, so opening a multi-million-row catalog
+// allocates one int per shelf-available title.
+public class CatalogTableModel extends AbstractTableModel {
+    public enum Column {
+        ID("ID"),
+        ISBN("ISBN"),
+        TITLE("Title"),
+        AUTHOR("Author"),
+        CATEGORY("Category"),
+        AVAILABLE("Available Quantity");
+
+        private final String label;
+
+        Column(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Column[] columns;
+    private final String[] labels;
+
+    private List<Book> books = new ArrayList<>();
+    private CatalogSnapshot snapshot;
+    private int[] indexes = new int[0];
+    private CompletableFuture<Available> loading;
+
+    // Rows for showAvailable, read on a query thread
+    private static class Available {
+        final CatalogSnapshot snapshot;
+        final int[] indexes;
+        final List<Book> books;
+
+        Available(CatalogSnapshot snapshot, int[] indexes, List<Book> books) {
+            this.snapshot = snapshot;
+            this.indexes = indexes;
+            this.books = books;
+        }
+    }
+
+    // Labels default to the column names; pass labels to match a screen's existing headings
+    public CatalogTableModel(Column[] columns, String... labels) {
+        this.columns = columns;
+        this.labels = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            this.labels[i] = i < labels.length ? labels[i] : columns[i].label;
+        }
+    }
+
+    // Books with copies on the shelf, from the snapshot when one is configured. Read off the event
+    // thread, since the first read may wait for the snapshot to be written or the catalog to load;
+    // a setBooks call made meanwhile wins over the late result.
+    public void showAvailable(Consumer<Throwable> onError) {
+        cancelLoading();
+        CompletableFuture<Available> load = DatabaseConnection.supply(() -> {
+            CatalogSnapshot current = CatalogSnapshot.current();
+            if (current == null) {
+                return new Available(null, new int[0], BookCatalog.available());
+            }
+            return new Available(current, current.availableIndexes(), current.addedAvailable());
+        });
+        loading = load;
+        DatabaseConnection.onEdt(load, available -> {
+            if (load != loading) {
+                return;
+            }
+            loading = null;
+            snapshot = available.snapshot;
+            indexes = available.indexes;
+            books = available.books;
+            fireTableDataChanged();
+        }, error -> {
+            if (load != loading) {
+                return;
+            }
+            loading = null;
+            onError.accept(error);
+        });
+    }
+
+    private void cancelLoading() {
+        if (loading != null) {
+            loading.cancel(false);
+            loading = null;
+        }
+    }
+
+    public void setBooks(List<Book> books) {
+        cancelLoading();
+        this.snapshot = null;
+        this.indexes = new int[0];
+        this.books = books;
+        fireTableDataChanged();
+    }
+
+    public int getBookId(int row) {
+        return (Integer) getValueAt(row, indexOf(Column.ID));
+    }
+
+    public String getTitle(int row) {
+        return (String) getValueAt(row, indexOf(Column.TITLE));
+    }
+
+    @Override
+    public int getRowCount() {
+        return indexes.length + books.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return labels[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        Column c = columns[column];
+        return c == Column.ID || c == Column.AVAILABLE ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row >= indexes.length) {
+            return value(books.get(row - indexes.length), columns[column]);
+        }
+        int index = indexes[row];
+        Book book = snapshot.overlayFor(index);
+        if (book != null && book != CatalogSnapshot.REMOVED) {
+            return value(book, columns[column]);
+        }
+        switch (columns[column]) {
+            case ID:
+                return snapshot.getBookId(index);
+            case ISBN:
+                return snapshot.getIsbn(index);
+            case TITLE:
+                return snapshot.getTitle(index);
+            case AUTHOR:
+                return snapshot.getAuthor(index);
+            case CATEGORY:
+                return snapshot.getCategory(index);
+            default:
+                return book == CatalogSnapshot.REMOVED ? 0 : snapshot.getAvailable(index);
+        }
+    }
+
+    private static Object value(Book book, Column column) {
+        switch (column) {
+            case ID:
+                return book.getId();
+            case ISBN:
+                return book.getIsbn();
+            case TITLE:
+                return book.getTitle();
+            case AUTHOR:
+                return book.getAuthor();
+            case CATEGORY:
+                return book.getCategory();
+            default:
+                return book.getAvailableQuantity();
+        }
+    }
+
+    private int indexOf(Column column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == column) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(column + " is not shown");
+    }
+}
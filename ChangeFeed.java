@@ -0,0 +1,213 @@
+import java.sql.SQLException;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tails the change_log table that triggers fill on every write to books, loans, users and fines,
+// and evicts exactly the entries that changed from this client's caches: the book catalog, the
+// dashboard counters, the sign-up filters and any StudentLoanState registered as a listener.
+// Each poll is a primary key range scan (seq > ?), so a dozen desks polling every second cost
+// next to nothing when nothing has changed. Our own writes come back through the feed as well.
+// Re-reading them is harmless because the screens never apply a local delta after a write: they
+// re-read the stored row too, so handling a change twice yields the same cached book.
+//
+// AUTO_INCREMENT hands out seq before commit, so a lower seq can become visible after a higher
+// one. Rows above a hole are applied at once, but the read position only moves past the hole
+// once it fills or has stayed empty for gapTimeoutMs (a rolled-back insert never fills).
+public class ChangeFeed {
+    private static final long POLL_MS = Long.getLong("library.changes.pollMs", 1000);
+    private static final long GAP_TIMEOUT_MS = Long.getLong("library.changes.gapTimeoutMs", 10_000);
+    private static final int RETENTION_HOURS = Integer.getInteger("library.changes.retentionHours", 24);
+    private static final int BATCH_SIZE = 500;
+    private static final long PRUNE_EVERY_MS = 10 * 60 * 1000;
+
+    // id passed to listeners when every entity of a type may have changed, e.g. after this
+    // client fell further behind than the log is kept. Real ids start at 1.
+    public static final int ALL = 0;
+
+    public enum Entity {
+        BOOK,
+        LOAN,
+        USER,
+        FINE
+    }
+
+    public interface Listener {
+        void onChange(Entity entity, int id);
+    }
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Everything at or below floor has been applied; applied holds seqs above it already seen
+    private static volatile long floor;
+    private static final TreeSet<Long> applied = new TreeSet<>();
+    private static long gapSince = 0;
+    private static long lastPollAt;
+    private static long lastPruneAt;
+
+    private static final AtomicLong polls = new AtomicLong();
+    private static final AtomicLong changes = new AtomicLong();
+    private static final AtomicLong skippedGaps = new AtomicLong();
+    private static final AtomicLong resyncs = new AtomicLong();
+    private static final AtomicLong failures = new AtomicLong();
+
+    private static volatile ScheduledExecutorService poller;
+
+    private ChangeFeed() {
+    }
+
+    // Starts from the current end of the log; earlier changes are already in whatever gets loaded
+    public static synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        try {
+            floor = DatabaseConnection.queryFirst("SELECT COALESCE(MAX(seq), 0) FROM change_log", null,
+                rs -> rs.getLong(1));
+        } catch (SQLException e) {
+            System.err.println("Change feed disabled: " + e.getMessage());
+            return;
+        }
+        lastPollAt = System.currentTimeMillis();
+        lastPruneAt = lastPollAt;
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-feed");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(ChangeFeed::pollQuietly, POLL_MS, POLL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private static void pollQuietly() {
+        try {
+            poll();
+        } catch (SQLException | RuntimeException e) {
+            failures.incrementAndGet();
+            System.err.println("Change feed poll failed: " + e.getMessage());
+        }
+    }
+
+    static synchronized void poll() throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPollAt > RETENTION_HOURS * 3_600_000L) {
+            // Asleep longer than the log is kept: what we missed may already be pruned
+            resync();
+        }
+        polls.incrementAndGet();
+
+        List<long[]> rows = DatabaseConnection.queryList(
+            "SELECT seq, entity, entity_id FROM change_log WHERE seq > ? ORDER BY seq LIMIT " + BATCH_SIZE,
+            stmt -> stmt.setLong(1, floor),
+            rs -> new long[]{rs.getLong(1), entityCode(rs.getString(2)), rs.getInt(3)});
+        lastPollAt = now;
+
+        for (long[] row : rows) {
+            if (applied.add(row[0]) && row[1] >= 0) {
+                changes.incrementAndGet();
+                dispatch(Entity.values()[(int) row[1]], (int) row[2]);
+            }
+        }
+        advance(now);
+
+        if (now - lastPruneAt > PRUNE_EVERY_MS) {
+            lastPruneAt = now;
+            // Any desk may prune; the deletes are idempotent
+            DatabaseConnection.update(
+                "DELETE FROM change_log WHERE changed_at < CURRENT_TIMESTAMP - INTERVAL ? HOUR LIMIT 10000",
+                stmt -> stmt.setInt(1, RETENTION_HOURS));
+        }
+    }
+
+    private static void advance(long now) {
+        while (applied.remove(floor + 1)) {
+            floor++;
+        }
+        if (applied.isEmpty()) {
+            gapSince = 0;
+            return;
+        }
+        if (gapSince == 0) {
+            gapSince = now;
+        } else if (now - gapSince > GAP_TIMEOUT_MS) {
+            // Still empty after the timeout: a rolled-back insert, not a slow commit
+            skippedGaps.incrementAndGet();
+            floor = applied.first() - 1;
+            gapSince = 0;
+            advance(now);
+        }
+    }
+
+    private static int entityCode(String entity) {
+        try {
+            return Entity.valueOf(entity).ordinal();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static void resync() {
+        resyncs.incrementAndGet();
+        for (Entity entity : Entity.values()) {
+            dispatch(entity, ALL);
+        }
+    }
+
+    private static void dispatch(Entity entity, int id) {
+        try {
+            switch (entity) {
+                case BOOK:
+                    if (id == ALL) {
+                        BookCatalog.invalidate();
+                    } else {
+                        BookCatalog.refresh(id);
+                    }
+                    LibraryStats.requestReconcile();
+                    break;
+                case LOAN:
+                    DataVersions.bump(DataVersions.Domain.LOANS);
+                    LibraryStats.requestReconcile();
+                    break;
+                case USER:
+                    DataVersions.bump(DataVersions.Domain.USERS);
+                    LibraryStats.requestReconcile();
+                    if (id == ALL) {
+                        UserIdentifiers.warmInBackground();
+                    } else {
+                        User user = UserRepository.findById(id);
+                        if (user != null) {
+                            UserIdentifiers.added(user.getUsername(), user.getEmail());
+                        }
+                    }
+                    break;
+                case FINE:
+                    DataVersions.bump(DataVersions.Domain.FINES);
+                    break;
+            }
+        } catch (SQLException e) {
+            System.err.println("Change feed could not apply " + entity + " " + id + ": " + e.getMessage());
+        }
+        for (Listener listener : listeners) {
+            listener.onChange(entity, id);
+        }
+    }
+
+    public static String describe() {
+        if (poller == null) {
+            return "stopped";
+        }
+        return String.format("position=%d, polls=%d, changes=%d, skippedGaps=%d, resyncs=%d, failures=%d",
+            floor, polls.get(), changes.get(), skippedGaps.get(), resyncs.get(), failures.get());
+    }
+}
@@ -0,0 +1,31 @@
+import java.sql.SQLException;
+
+// Outcome codes reported by the sp_checkout stored procedure
+public enum CheckoutResult {
+    OK("Book issued successfully"),
+    NOT_FOUND("Student ID not found"),
+    NOT_ACTIVE("Student account is not active"),
+    HAS_OVERDUE("Student has overdue books"),
+    ALREADY_HAS("Student already has this book"),
+    UNAVAILABLE("Book not available");
+
+    private final String message;
+
+    CheckoutResult(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    // Fails loudly on a code this client does not know, e.g. from a newer procedure
+    public static CheckoutResult fromCode(String code) throws SQLException {
+        for (CheckoutResult result : values()) {
+            if (result.name().equals(code)) {
+                return result;
+            }
+        }
+        throw new SQLException("Unexpected result from sp_checkout: " + code);
+    }
+}
@@ -0,0 +1,619 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Bounded pool of physical JDBC connections. Callers receive a proxy whose close() returns the
+// connection to the pool instead of closing the socket. Each pooled connection keeps an LRU cache
+// of prepared statements keyed by SQL text. Connections are only validated on borrow after sitting
+// idle for a while; a background keepalive checks idle connections and replaces dead ones.
+// Every SQLException thrown through a pooled connection or its statements is passed to the
+// failure listener, so an outage noticed mid-query is reported the same as a failed connect.
+public class ConnectionPool {
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+    private final long validationIdleMillis;
+    private final Consumer<SQLException> failureListener;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaksReported = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+    private final AtomicLong validationsPerformed = new AtomicLong();
+    private final AtomicLong validationsAvoided = new AtomicLong();
+    private final AtomicLong deadConnectionsRemoved = new AtomicLong();
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis, int statementCacheSize,
+                          long validationIdleMillis, Consumer<SQLException> failureListener) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.validationIdleMillis = validationIdleMillis;
+        this.failureListener = failureListener;
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, 30_000) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        long keepalive = Math.max(1000, validationIdleMillis);
+        housekeeper.scheduleWithFixedDelay(this::keepalive, keepalive, keepalive, TimeUnit.MILLISECONDS);
+        housekeeper.execute(this::fillToMinimum);
+    }
+
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        waiters.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection");
+        } finally {
+            waiters.decrementAndGet();
+        }
+        waitTimes.record(System.nanoTime() - start);
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new SQLException("Timed out after " + borrowTimeoutMillis +
+                " ms waiting for a database connection (" + describe() + ")");
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (!needsValidation(pooled)) {
+                    validationsAvoided.incrementAndGet();
+                    break;
+                }
+                if (validate(pooled)) {
+                    break;
+                }
+                deadConnectionsRemoved.incrementAndGet();
+                pooled.closePhysical();
+            }
+            if (pooled == null) {
+                pooled = new PooledConnection(factory.create());
+                created.incrementAndGet();
+                pooled.lastValidated = System.currentTimeMillis();
+            }
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowStack = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            active.add(pooled);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // A connection that was used or checked recently is trusted without a round trip
+    private boolean needsValidation(PooledConnection pooled) {
+        long lastSeenAlive = Math.max(pooled.lastUsed, pooled.lastValidated);
+        return System.currentTimeMillis() - lastSeenAlive > validationIdleMillis;
+    }
+
+    private boolean validate(PooledConnection pooled) {
+        validationsPerformed.incrementAndGet();
+        try {
+            boolean valid = pooled.physical.isValid(5);
+            if (valid) {
+                pooled.lastValidated = System.currentTimeMillis();
+            }
+            return valid;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Checks connections that have been idle past the validation threshold so borrowers don't have to
+    private void keepalive() {
+        List<PooledConnection> candidates = new ArrayList<>();
+        for (PooledConnection pooled : idle) {
+            if (needsValidation(pooled)) {
+                candidates.add(pooled);
+            }
+        }
+        for (PooledConnection pooled : candidates) {
+            // Only check connections no borrower has taken in the meantime
+            if (!idle.remove(pooled)) {
+                continue;
+            }
+            if (validate(pooled)) {
+                idle.offerLast(pooled);
+            } else {
+                deadConnectionsRemoved.incrementAndGet();
+                pooled.closePhysical();
+            }
+        }
+        fillToMinimum();
+    }
+
+    private void release(PooledConnection pooled) {
+        if (!active.remove(pooled)) {
+            return;
+        }
+        try {
+            pooled.closeTrackedStatements();
+            if (closed || pooled.physical.isClosed()) {
+                pooled.closePhysical();
+            } else {
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            pooled.closePhysical();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Evict the least recently used idle connections above the minimum size
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() + active.size() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastUsed > idleTimeoutMillis && idle.remove(pooled)) {
+                pooled.closePhysical();
+            }
+        }
+
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : active) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leaksReported.incrementAndGet();
+                    System.err.println("Possible connection leak: connection held for " +
+                        (now - pooled.borrowedAt) + " ms");
+                    if (pooled.borrowStack != null) {
+                        pooled.borrowStack.printStackTrace();
+                    }
+                }
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    private void fillToMinimum() {
+        while (!closed && idle.size() + active.size() < minSize) {
+            try {
+                PooledConnection pooled = new PooledConnection(factory.create());
+                created.incrementAndGet();
+                pooled.lastUsed = System.currentTimeMillis();
+                pooled.lastValidated = pooled.lastUsed;
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                return;
+            }
+        }
+    }
+
+    // Drops every idle connection, e.g. after the server went away
+    public void evictIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getWaiterCount() {
+        return waiters.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    public long getLeaksReported() {
+        return leaksReported.get();
+    }
+
+    public LatencyHistogram getWaitTimeHistogram() {
+        return waitTimes;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions.get();
+    }
+
+    public long getValidationsPerformed() {
+        return validationsPerformed.get();
+    }
+
+    public long getValidationsAvoided() {
+        return validationsAvoided.get();
+    }
+
+    public long getDeadConnectionsRemoved() {
+        return deadConnectionsRemoved.get();
+    }
+
+    public String describe() {
+        return "active=" + getActiveCount() + ", idle=" + getIdleCount() + ", waiters=" + getWaiterCount() +
+            ", max=" + maxSize + ", wait " + waitTimes.summary() +
+            ", stmt cache hits=" + getStatementCacheHits() + " misses=" + getStatementCacheMisses() +
+            ", validations=" + getValidationsPerformed() + " avoided=" + getValidationsAvoided();
+    }
+
+    private class PooledConnection {
+        private final Connection physical;
+        private final List<Statement> statements = new ArrayList<>();
+        private final StatementCache statementCache = new StatementCache();
+        private volatile long lastUsed;
+        private volatile long lastValidated;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Handle(this)
+            );
+        }
+
+        synchronized void track(Statement statement) {
+            statements.add(statement);
+        }
+
+        synchronized void closeTrackedStatements() {
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            statements.clear();
+            statementCache.releaseAll();
+        }
+
+        // Returns a cached statement for the SQL text, or null if it is already handed out in this borrow.
+        // The handle reports the borrower's pooled connection, not the physical one.
+        synchronized PreparedStatement prepareCached(String sql, Connection connection) throws SQLException {
+            CachedStatement cached = statementCache.get(sql);
+            if (cached != null) {
+                if (cached.inUse) {
+                    return null;
+                }
+                statementCacheHits.incrementAndGet();
+                cached.reset();
+            } else {
+                statementCacheMisses.incrementAndGet();
+                cached = new CachedStatement(physical.prepareStatement(sql));
+                statementCache.put(sql, cached);
+            }
+            return cached.newHandle(connection);
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+            }
+        }
+
+        private class StatementCache extends LinkedHashMap<String, CachedStatement> {
+            StatementCache() {
+                super(16, 0.75f, true);
+            }
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+                statementCacheEvictions.incrementAndGet();
+                CachedStatement evicted = eldest.getValue();
+                if (evicted.inUse) {
+                    // Still referenced by the current borrower; close it when the connection is returned
+                    statements.add(evicted.statement);
+                } else {
+                    evicted.closeQuietly();
+                }
+                return true;
+            }
+
+            // Handles still held by the borrower stop working, so a late execute or cancel
+            // cannot reach a statement that now belongs to the next borrower
+            void releaseAll() {
+                for (CachedStatement cached : values()) {
+                    cached.release();
+                }
+            }
+        }
+    }
+
+    // A prepared statement owned by the cache; callers get a handle whose close() hands it back
+    private class CachedStatement {
+        private final PreparedStatement statement;
+        private volatile boolean inUse;
+        private StatementHandle current;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        synchronized PreparedStatement newHandle(Connection connection) {
+            current = new StatementHandle(this, connection);
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                current
+            );
+        }
+
+        // Closes the outstanding handle, if any, and makes the statement available again
+        synchronized void release() {
+            if (current != null) {
+                current.closed = true;
+                current = null;
+            }
+            inUse = false;
+        }
+
+        synchronized void release(StatementHandle handle) {
+            if (current == handle) {
+                release();
+            }
+        }
+
+        // Settings the previous borrower may have changed
+        void reset() throws SQLException {
+            statement.clearParameters();
+            statement.setFetchSize(0);
+            statement.setMaxRows(0);
+            statement.setQueryTimeout(0);
+            statement.clearWarnings();
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    private class StatementHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection connection;
+        private volatile boolean closed = false;
+
+        StatementHandle(CachedStatement cached, Connection connection) {
+            this.cached = cached;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    cached.release(this);
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "getConnection":
+                    return connection;
+                case "cancel":
+                    // Checked and sent under the lock release() takes, so it cannot hit the next borrower
+                    synchronized (cached) {
+                        if (closed) {
+                            throw new SQLException("Statement has already been closed");
+                        }
+                        cached.statement.cancel();
+                    }
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.statement + "]";
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw reportFailure(e.getCause());
+            }
+        }
+    }
+
+    // Statements the pool does not cache, closed when the connection is returned
+    private class TrackedStatementHandle implements InvocationHandler {
+        private final Statement statement;
+        private final Connection connection;
+
+        TrackedStatementHandle(Statement statement, Connection connection) {
+            this.statement = statement;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TrackedStatement[" + statement + "]";
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw reportFailure(e.getCause());
+            }
+        }
+    }
+
+    private Throwable reportFailure(Throwable cause) {
+        if (cause instanceof SQLException && failureListener != null) {
+            failureListener.accept((SQLException) cause);
+        }
+        return cause;
+    }
+
+    private class Handle implements InvocationHandler {
+        private final PooledConnection owner;
+        private volatile boolean returned = false;
+
+        Handle(PooledConnection owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(owner);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || owner.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + owner.physical + "]";
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (statementCacheSize > 0 && method.getName().equals("prepareStatement")
+                    && args.length == 1 && args[0] instanceof String) {
+                PreparedStatement cached = owner.prepareCached((String) args[0], (Connection) proxy);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(owner.physical, args);
+            } catch (InvocationTargetException e) {
+                throw reportFailure(e.getCause());
+            }
+            if (result instanceof Statement) {
+                Statement statement = (Statement) result;
+                owner.track(statement);
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+                return Proxy.newProxyInstance(
+                    type.getClassLoader(),
+                    new Class<?>[]{type},
+                    new TrackedStatementHandle(statement, (Connection) proxy)
+                );
+            }
+            return result;
+        }
+    }
+}
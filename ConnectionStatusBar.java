@@ -0,0 +1,45 @@
+import javax.swing.*;
+import java.awt.*;
+
+// Status bar label that follows the database connection state instead of popping dialogs
+public class ConnectionStatusBar extends JLabel {
+    private final DatabaseCircuitBreaker.StateListener listener =
+        (state, detail) -> SwingUtilities.invokeLater(() -> showState(state, detail));
+
+    public ConnectionStatusBar() {
+        setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        setHorizontalAlignment(SwingConstants.RIGHT);
+        showState(DatabaseConnection.getConnectionState(), null);
+    }
+
+    private void showState(DatabaseCircuitBreaker.State state, String detail) {
+        switch (state) {
+            case CONNECTED:
+                setText("Database: connected");
+                setForeground(new Color(39, 174, 96));
+                break;
+            case RECONNECTING:
+                setText(detail != null ? detail : "Reconnecting to database...");
+                setForeground(new Color(243, 156, 18));
+                break;
+            case DISCONNECTED:
+                setText(detail != null ? detail : "Database unavailable");
+                setForeground(new Color(192, 57, 43));
+                break;
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DatabaseConnection.addConnectionStateListener(listener);
+        showState(DatabaseConnection.getConnectionState(), null);
+    }
+
+    @Override
+    public void removeNotify() {
+        DatabaseConnection.removeConnectionStateListener(listener);
+        super.removeNotify();
+    }
+}
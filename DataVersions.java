@@ -0,0 +1,36 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Change counters per kind of data. Write paths bump the domain they touched after committing;
+// screens remember the versions they were built from and only reload when one has moved.
+public class DataVersions {
+    public enum Domain {
+        BOOKS,
+        LOANS,
+        USERS,
+        NOTIFICATIONS,
+        FINES
+    }
+
+    private static final AtomicLongArray versions = new AtomicLongArray(Domain.values().length);
+
+    private DataVersions() {
+    }
+
+    public static void bump(Domain domain) {
+        versions.incrementAndGet(domain.ordinal());
+    }
+
+    public static long get(Domain domain) {
+        return versions.get(domain.ordinal());
+    }
+
+    // Combined version of several domains. Versions only grow, so the stamp changes
+    // exactly when at least one of the domains has changed.
+    public static long stamp(Domain... domains) {
+        long stamp = 0;
+        for (Domain domain : domains) {
+            stamp += get(domain);
+        }
+        return stamp;
+    }
+}
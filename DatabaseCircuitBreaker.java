@@ -0,0 +1,143 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Guards physical connection attempts. After a failed connect, or a query failing with a
+// connection-class SQLState (08xxx) on a pooled connection, the breaker opens: callers fail fast
+// while a background probe retries with jittered exponential backoff until the database is back.
+public class DatabaseCircuitBreaker {
+    public enum State { CONNECTED, DISCONNECTED, RECONNECTING }
+
+    public interface StateListener {
+        void stateChanged(State state, String detail);
+    }
+
+    private final ConnectionPool.ConnectionFactory factory;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final List<StateListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile State state = State.CONNECTED;
+    private volatile String lastError = "";
+    private volatile long nextProbeAt = 0;
+    private int failedProbes = 0;
+
+    public DatabaseCircuitBreaker(ConnectionPool.ConnectionFactory factory, long baseBackoffMillis, long maxBackoffMillis) {
+        this.factory = factory;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public Connection connect() throws SQLException {
+        checkAvailable();
+        try {
+            return factory.create();
+        } catch (SQLException e) {
+            trip(e);
+            throw e;
+        }
+    }
+
+    // Opens the breaker when a statement failed because the connection to the server was lost.
+    // The 08xxx state may sit on a chained or a wrapped exception, so both chains are followed.
+    public void recordFailure(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                for (SQLException s = (SQLException) t; s != null; s = s.getNextException()) {
+                    String sqlState = s.getSQLState();
+                    if (sqlState != null && sqlState.startsWith("08")) {
+                        trip(s);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Throws immediately while the breaker is open instead of waiting on a dead server
+    public void checkAvailable() throws SQLException {
+        if (state != State.CONNECTED) {
+            long waitSeconds = Math.max(0, (nextProbeAt - System.currentTimeMillis() + 999) / 1000);
+            throw new SQLException("Database is unavailable (" + lastError + "). Retrying in " +
+                waitSeconds + "s.", "08001");
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void addListener(StateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(StateListener listener) {
+        listeners.remove(listener);
+    }
+
+    private synchronized void trip(SQLException cause) {
+        lastError = cause.getMessage();
+        if (state != State.CONNECTED) {
+            return;
+        }
+        failedProbes = 0;
+        System.err.println("Database connection failed, opening circuit: " + cause.getMessage());
+        scheduleProbe();
+    }
+
+    private synchronized void scheduleProbe() {
+        long delay = nextBackoff();
+        nextProbeAt = System.currentTimeMillis() + delay;
+        setState(State.DISCONNECTED, "Database unavailable, retrying in " + Math.max(1, delay / 1000) + "s");
+        prober.schedule(this::probe, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Exponential backoff with equal jitter: half the step is fixed, the other half random
+    private long nextBackoff() {
+        long step = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(failedProbes, 20));
+        return step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1);
+    }
+
+    private void probe() {
+        synchronized (this) {
+            setState(State.RECONNECTING, "Reconnecting to database...");
+        }
+        try (Connection probe = factory.create()) {
+            if (!probe.isValid(5)) {
+                throw new SQLException("New connection failed validation", "08003");
+            }
+            synchronized (this) {
+                failedProbes = 0;
+                lastError = "";
+                setState(State.CONNECTED, "Connected to database");
+            }
+        } catch (SQLException e) {
+            synchronized (this) {
+                failedProbes++;
+                lastError = e.getMessage();
+                scheduleProbe();
+            }
+        }
+    }
+
+    private void setState(State newState, String detail) {
+        state = newState;
+        for (StateListener listener : listeners) {
+            try {
+                listener.stateChanged(newState, detail);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,176 +1,413 @@
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import javax.swing.JOptionPane;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
 
 public class DatabaseConnection {
     private static final String URL = "jdbc:mysql://localhost:3306/library_db";
     private static final String USERNAME = "root";
     private static final String PASSWORD = "263139";
     
-    // Connection pool size
-    private static final int MAX_RETRIES = 3;
-    private static Connection connection = null;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
 
-    public static Connection getConnection() {
-        int retries = 0;
-        while (retries < MAX_RETRIES) {
-            try {
-                // Check if connection is null or closed
-                if (connection == null || connection.isClosed()) {
-                    // Load the JDBC driver
-                    Class.forName("com.mysql.cj.jdbc.Driver");
-                    
-                    // Create new connection with timeout settings
-                    connection = DriverManager.getConnection(
-                        URL + "?autoReconnect=true&useSSL=false&serverTimezone=UTC",
-                        USERNAME,
-                        PASSWORD
-                    );
-                    
-                    // Test the connection
-                    if (connection.isValid(5)) { // 5 seconds timeout
-                        return connection;
-                    }
-                } else if (connection.isValid(5)) {
-                    return connection;
-                }
-            } catch (ClassNotFoundException e) {
-                showError("Database driver not found. Please ensure MySQL JDBC driver is in the classpath.\nError: " + e.getMessage());
-                return null;
-            } catch (SQLException e) {
-                retries++;
-                if (retries == MAX_RETRIES) {
-                    showError("Failed to connect to database after " + MAX_RETRIES + " attempts.\n" +
-                             "Please check:\n" +
-                             "1. MySQL server is running\n" +
-                             "2. Database 'library_management' exists\n" +
-                             "3. Username and password are correct\n" +
-                             "4. Port 3306 is correct and available\n\n" +
-                             "Error: " + e.getMessage());
-                    return null;
-                }
-                // Wait before retrying
-                try {
-                    Thread.sleep(1000); // Wait 1 second before retrying
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
+    // Connection pool settings, overridable with -Dlibrary.db.pool.* system properties
+    private static final int POOL_MIN_SIZE = Integer.getInteger("library.db.pool.min", 1);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("library.db.pool.max", 10);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("library.db.pool.borrowTimeoutMs", 5000);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("library.db.pool.idleTimeoutMs", 300_000);
+    private static final long LEAK_THRESHOLD_MS = Long.getLong("library.db.pool.leakThresholdMs", 60_000);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("library.db.statementCacheSize", 64);
+    private static final long VALIDATION_IDLE_MS = Long.getLong("library.db.pool.validationIdleMs", 30_000);
+
+    // Reconnect backoff while the database is down
+    private static final long RECONNECT_BASE_MS = Long.getLong("library.db.reconnect.baseMs", 500);
+    private static final long RECONNECT_MAX_MS = Long.getLong("library.db.reconnect.maxMs", 30_000);
+
+    // Write batching: flush after this many queued writes or this long after the first one
+    private static final int BATCH_MAX_SIZE = Integer.getInteger("library.db.batch.maxSize", 100);
+    private static final long BATCH_MAX_DELAY_MS = Long.getLong("library.db.batch.maxDelayMs", 50);
+
+    private static final DatabaseCircuitBreaker circuitBreaker = new DatabaseCircuitBreaker(
+        DatabaseConnection::openConnection,
+        RECONNECT_BASE_MS,
+        RECONNECT_MAX_MS
+    );
+
+    private static final ConnectionPool pool = new ConnectionPool(
+        circuitBreaker::connect,
+        POOL_MIN_SIZE,
+        POOL_MAX_SIZE,
+        BORROW_TIMEOUT_MS,
+        IDLE_TIMEOUT_MS,
+        LEAK_THRESHOLD_MS,
+        STATEMENT_CACHE_SIZE,
+        VALIDATION_IDLE_MS,
+        circuitBreaker::recordFailure
+    );
+
+    // Per-statement timing; disable with -Dlibrary.db.metrics=false
+    private static final boolean METRICS_ENABLED = Boolean.parseBoolean(System.getProperty("library.db.metrics", "true"));
+    private static final QueryMetrics queryMetrics = new QueryMetrics();
+
+    // Statements slower than this are written to the slow query log; -1 disables the log
+    private static final long SLOW_QUERY_MS = Long.getLong("library.db.slowQueryMs", 500);
+    private static final String SLOW_QUERY_FILE = System.getProperty("library.db.slowQueryLog", "logs/slow-query.log");
+    private static final long SLOW_QUERY_MAX_BYTES = Long.getLong("library.db.slowQueryLog.maxBytes", 5 * 1024 * 1024);
+    private static final int SLOW_QUERY_MAX_FILES = Integer.getInteger("library.db.slowQueryLog.maxFiles", 5);
+    private static final SlowQueryLog slowQueryLog = METRICS_ENABLED && SLOW_QUERY_MS >= 0
+        ? new SlowQueryLog(SLOW_QUERY_MS, new java.io.File(SLOW_QUERY_FILE), SLOW_QUERY_MAX_BYTES,
+            SLOW_QUERY_MAX_FILES, circuitBreaker::connect)
+        : null;
+
+    private static final BatchWriter batchWriter = new BatchWriter(
+        DatabaseConnection::getConnection,
+        BATCH_MAX_SIZE,
+        BATCH_MAX_DELAY_MS
+    );
+
+    // Transactions picked as deadlock victims or hitting a lock wait timeout are replayed
+    // up to this many times, backing off between attempts
+    private static final int TX_MAX_ATTEMPTS = Integer.getInteger("library.db.tx.maxAttempts", 5);
+    private static final long TX_BACKOFF_BASE_MS = Long.getLong("library.db.tx.backoffBaseMs", 20);
+    private static final long TX_BACKOFF_MAX_MS = Long.getLong("library.db.tx.backoffMaxMs", 1000);
+    private static final TransactionTemplate transactions = new TransactionTemplate(
+        DatabaseConnection::getConnection,
+        TX_MAX_ATTEMPTS,
+        TX_BACKOFF_BASE_MS,
+        TX_BACKOFF_MAX_MS
+    );
+
+    // Streaming queries hand rows to the event thread in chunks of this size
+    private static final int STREAM_CHUNK_SIZE = Integer.getInteger("library.db.stream.chunkSize", 500);
+    private static final int STREAM_CHUNKS_IN_FLIGHT = 2;
+
+    // Runs asynchronous queries off the Swing event thread
+    private static final ExecutorService queryExecutor = createQueryExecutor();
+
+    public interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    static {
+        // Connections idling in the pool are unusable once the server has gone away
+        circuitBreaker.addListener((state, detail) -> {
+            if (state == DatabaseCircuitBreaker.State.DISCONNECTED) {
+                pool.evictIdle();
+            }
+        });
+    }
+
+    // Borrows a connection from the pool; closing it returns it to the pool.
+    // Fails fast with an SQLException while the database is unreachable.
+    public static Connection getConnection() throws SQLException {
+        circuitBreaker.checkAvailable();
+        Connection conn = pool.borrow();
+        return METRICS_ENABLED ? InstrumentedConnection.wrap(conn, queryMetrics, slowQueryLog) : conn;
+    }
+
+    public static void addConnectionStateListener(DatabaseCircuitBreaker.StateListener listener) {
+        circuitBreaker.addListener(listener);
+    }
+
+    public static void removeConnectionStateListener(DatabaseCircuitBreaker.StateListener listener) {
+        circuitBreaker.removeListener(listener);
+    }
+
+    public static DatabaseCircuitBreaker.State getConnectionState() {
+        return circuitBreaker.getState();
+    }
+
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    public static QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    public static SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    public static BatchWriter getBatchWriter() {
+        return batchWriter;
+    }
+
+    public static TransactionTemplate getTransactions() {
+        return transactions;
+    }
+
+    // Runs the work in one transaction, replaying it on deadlocks and lock wait timeouts
+    public static <T> T inTransaction(TransactionTemplate.Work<T> work) throws SQLException {
+        return transactions.execute(work);
+    }
+
+    // Runs the transaction on the query threads, so deadlock retries and their backoff never hold up
+    // the event thread
+    public static <T> CompletableFuture<T> inTransactionAsync(TransactionTemplate.Work<T> work) {
+        return supply(() -> transactions.execute(work));
+    }
+
+    // Runs the query on the calling thread and maps every row
+    public static <T> List<T> queryList(String sql, StatementBinder binder, RowMapper<T> mapper) throws SQLException {
+        try (Connection conn = getConnection()) {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            if (binder != null) {
+                binder.bind(stmt);
+            }
+            List<T> rows = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
                 }
             }
+            return rows;
         }
-        return null;
     }
 
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                connection = null;
+    // First row of the result, or null when there is none
+    public static <T> T queryFirst(String sql, StatementBinder binder, RowMapper<T> mapper) throws SQLException {
+        try (Connection conn = getConnection()) {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            if (binder != null) {
+                binder.bind(stmt);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
             }
-        } catch (SQLException e) {
-            showError("Error closing database connection: " + e.getMessage());
         }
     }
 
-    private static void showError(String message) {
-        JOptionPane.showMessageDialog(
-            null,
-            message,
-            "Database Connection Error",
-            JOptionPane.ERROR_MESSAGE
-        );
+    // Single numeric result such as a COUNT(*) or SUM(); 0 when the query returns no row or NULL
+    public static int queryInt(String sql, StatementBinder binder) throws SQLException {
+        Integer value = queryFirst(sql, binder, rs -> rs.getInt(1));
+        return value != null ? value : 0;
     }
 
-    // Method to check if database exists and create if it doesn't
-    public static void initializeDatabase() {
-        try {
-            // First try to connect to MySQL without specifying database
-            Connection tempConn = DriverManager.getConnection(
-                "jdbc:mysql://localhost:3306?autoReconnect=true&useSSL=false&serverTimezone=UTC",
-                USERNAME,
-                PASSWORD
-            );
+    public static int update(String sql, StatementBinder binder) throws SQLException {
+        try (Connection conn = getConnection()) {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            if (binder != null) {
+                binder.bind(stmt);
+            }
+            return stmt.executeUpdate();
+        }
+    }
 
-            java.sql.Statement stmt = tempConn.createStatement();
+    // Runs an INSERT and returns the generated key, or -1 when the table has none
+    public static int insert(String sql, StatementBinder binder) throws SQLException {
+        try (Connection conn = getConnection()) {
+            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            if (binder != null) {
+                binder.bind(stmt);
+            }
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : -1;
+            }
+        }
+    }
 
-            // Create database if it doesn't exist
-            stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS library_db");
+    // Runs the query on a background thread and maps every row. Cancelling the returned future
+    // aborts the statement on the server, so a superseded search stops consuming MySQL time.
+    public static <T> QueryFuture<List<T>> query(String sql, StatementBinder binder, RowMapper<T> mapper) {
+        QueryFuture<List<T>> future = new QueryFuture<>();
+        queryExecutor.execute(() -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            try (Connection conn = getConnection()) {
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                if (binder != null) {
+                    binder.bind(stmt);
+                }
+                future.attach(stmt);
+                List<T> rows = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next() && !future.isCancelled()) {
+                        rows.add(mapper.map(rs));
+                    }
+                } finally {
+                    future.detach();
+                }
+                future.complete(rows);
+            } catch (SQLException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
 
-            // Use the database
-            stmt.executeUpdate("USE library_db");
+    // Runs other blocking work on the query threads, such as a cache lookup that may have to load
+    // the cache first. Cancelling the future only discards the result.
+    public static <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        queryExecutor.execute(() -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            try {
+                future.complete(work.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
 
-            // Create necessary tables
-            createTables(stmt);
+    // Streams a large result to the Swing event thread in chunks instead of buffering it. The driver
+    // reads rows off the socket one at a time (fetch size Integer.MIN_VALUE), and at most
+    // STREAM_CHUNKS_IN_FLIGHT chunks wait for the event thread, so memory use stays flat no matter how
+    // many rows there are. The future completes with the row count after the last chunk was delivered.
+    public static <T> QueryFuture<Long> stream(String sql, StatementBinder binder, RowMapper<T> mapper,
+                                               Consumer<List<T>> onChunk) {
+        QueryFuture<Long> future = new QueryFuture<>();
+        queryExecutor.execute(() -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            Semaphore inFlight = new Semaphore(STREAM_CHUNKS_IN_FLIGHT);
+            try (Connection conn = getConnection()) {
+                PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                if (binder != null) {
+                    binder.bind(stmt);
+                }
+                future.attach(stmt);
+                long total = 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    List<T> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+                    while (rs.next() && !future.isCancelled()) {
+                        chunk.add(mapper.map(rs));
+                        total++;
+                        if (chunk.size() == STREAM_CHUNK_SIZE) {
+                            deliverChunk(chunk, onChunk, inFlight, future);
+                            chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        deliverChunk(chunk, onChunk, inFlight, future);
+                    }
+                } finally {
+                    future.detach();
+                }
+                // Queued behind the last chunk, so the future completes once the EDT has consumed it
+                long rows = total;
+                SwingUtilities.invokeLater(() -> future.complete(rows));
+            } catch (SQLException | RuntimeException e) {
+                future.completeExceptionally(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
 
-            tempConn.close();
-        } catch (SQLException e) {
-            showError("Error initializing database: " + e.getMessage());
+    private static <T> void deliverChunk(List<T> chunk, Consumer<List<T>> onChunk, Semaphore inFlight,
+                                         QueryFuture<?> future) throws InterruptedException {
+        inFlight.acquire();
+        SwingUtilities.invokeLater(() -> {
+            try {
+                if (!future.isCancelled()) {
+                    onChunk.accept(chunk);
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    // Delivers the outcome of an asynchronous call on the Swing event thread. Cancelled futures are ignored.
+    public static <T> void onEdt(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            SwingUtilities.invokeLater(() -> {
+                if (cause == null) {
+                    onSuccess.accept(result);
+                } else if (!(cause instanceof CancellationException)) {
+                    onError.accept(cause);
+                }
+            });
+        });
+    }
+
+    private static ExecutorService createQueryExecutor() {
+        // Virtual threads when the runtime has them (Java 21+), otherwise a cached pool of daemon threads
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "db-query");
+                t.setDaemon(true);
+                return t;
+            });
         }
     }
 
-    private static void createTables(java.sql.Statement stmt) throws SQLException {
-        // Users table
-        stmt.executeUpdate(
-            "CREATE TABLE IF NOT EXISTS users (" +
-            "user_id INT PRIMARY KEY AUTO_INCREMENT, " +
-            "username VARCHAR(50) UNIQUE NOT NULL, " +
-            "password VARCHAR(255) NOT NULL, " +
-            "full_name VARCHAR(100) NOT NULL, " +
-            "email VARCHAR(100) UNIQUE NOT NULL, " +
-            "phone VARCHAR(20), " +
-            "role ENUM('ADMIN', 'LIBRARIAN', 'STUDENT') NOT NULL, " +
-            "is_active BOOLEAN DEFAULT false, " +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-            "approved_at TIMESTAMP NULL" +
-            ")"
-        );
+    // Opens a single physical connection; retries are left to the circuit breaker
+    private static Connection openConnection() throws SQLException {
+        try {
+            // Load the JDBC driver
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("MySQL JDBC driver not found. Please ensure it is in the classpath.", e);
+        }
 
-        // Books table
-        stmt.executeUpdate(
-            "CREATE TABLE IF NOT EXISTS books (" +
-            "book_id INT PRIMARY KEY AUTO_INCREMENT, " +
-            "title VARCHAR(255) NOT NULL, " +
-            "author VARCHAR(255) NOT NULL, " +
-            "isbn VARCHAR(13) UNIQUE NOT NULL, " +
-            "category VARCHAR(50), " +
-            "quantity INT NOT NULL DEFAULT 1, " +
-            "available_quantity INT NOT NULL DEFAULT 1, " +
-            "shelf_location VARCHAR(50), " +
-            "is_active BOOLEAN DEFAULT true" +
-            ")"
+        return DriverManager.getConnection(
+            URL + "?useSSL=false&serverTimezone=UTC&useServerPrepStmts=true&rewriteBatchedStatements=true&connectTimeout=" + CONNECT_TIMEOUT_MS,
+            USERNAME,
+            PASSWORD
         );
+    }
 
-        // Book borrowings table
-        stmt.executeUpdate(
-            "CREATE TABLE IF NOT EXISTS book_borrowings (" +
-            "borrowing_id INT PRIMARY KEY AUTO_INCREMENT, " +
-            "book_id INT NOT NULL, " +
-            "user_id INT NOT NULL, " +
-            "borrow_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-            "due_date TIMESTAMP NOT NULL, " +
-            "return_date TIMESTAMP NULL, " +
-            "status ENUM('BORROWED', 'RETURNED', 'OVERDUE') NOT NULL DEFAULT 'BORROWED', " +
-            "FOREIGN KEY (book_id) REFERENCES books(book_id), " +
-            "FOREIGN KEY (user_id) REFERENCES users(user_id)" +
-            ")"
-        );
+    public static void closeConnection() {
+        batchWriter.close();
+        pool.close();
+    }
 
-        // Notifications table
-        stmt.executeUpdate(
-            "CREATE TABLE IF NOT EXISTS notifications (" +
-            "notification_id INT PRIMARY KEY AUTO_INCREMENT, " +
-            "user_id INT NOT NULL, " +
-            "message TEXT NOT NULL, " +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-            "is_read BOOLEAN DEFAULT false, " +
-            "FOREIGN KEY (user_id) REFERENCES users(user_id)" +
-            ")"
-        );
+    // Method to check if database exists and create if it doesn't
+    public static void initializeDatabase() {
+        // First connect to MySQL without specifying database
+        try (Connection tempConn = DriverManager.getConnection(
+                "jdbc:mysql://localhost:3306?useSSL=false&serverTimezone=UTC",
+                USERNAME,
+                PASSWORD
+            )) {
+            try (java.sql.Statement stmt = tempConn.createStatement()) {
+                // Create database if it doesn't exist
+                stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS library_db");
 
-        // Create default admin account if it doesn't exist
-        stmt.executeUpdate(
-            "INSERT IGNORE INTO users (username, password, full_name, email, role, is_active) " +
-            "VALUES ('admin', 'admin123', 'System Administrator', 'admin@library.com', 'ADMIN', true)"
-        );
+                // Use the database
+                stmt.executeUpdate("USE library_db");
+            }
+
+            // Bring the schema up to the latest version
+            new SchemaMigrator(tempConn).migrate();
+        } catch (SQLException e) {
+            System.err.println("Error initializing database: " + e.getMessage());
+            e.printStackTrace();
+        }
     }
 }
\ No newline at end of file
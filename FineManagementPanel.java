@@ -3,7 +3,7 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
 
-public class FineManagementPanel extends JPanel {
+public class FineManagementPanel extends JPanel implements PanelRegistry.Refreshable {
     private JTable fineTable;
     private DefaultTableModel tableModel;
     private JTextField studentIdField;
@@ -75,6 +75,11 @@ public class FineManagementPanel extends JPanel {
         return panel;
     }
 
+    @Override
+    public void refresh() {
+        searchFines();
+    }
+
     private void searchFines() {
         String studentId = studentIdField.getText().trim();
         if (studentId.isEmpty()) {
@@ -83,13 +88,12 @@ public class FineManagementPanel extends JPanel {
         }
 
         tableModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getConnection()) {
             String query = "SELECT f.fine_id, u.full_name, b.title, bb.due_date, " +
                           "DATEDIFF(IFNULL(bb.return_date, CURRENT_DATE), bb.due_date) as days_late, " +
                           "f.amount, f.status " +
                           "FROM fines f " +
-                          "JOIN book_borrowings bb ON f.borrow_id = bb.borrow_id " +
+                          "JOIN book_borrowings bb ON f.borrow_id = bb.borrowing_id " +
                           "JOIN users u ON bb.user_id = u.user_id " +
                           "JOIN books b ON bb.book_id = b.book_id " +
                           "WHERE u.user_id = ?";
@@ -126,43 +130,43 @@ public class FineManagementPanel extends JPanel {
 
     private void loadAllFines() {
         tableModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT f.fine_id, u.full_name, b.title, bb.due_date, " +
-                          "DATEDIFF(IFNULL(bb.return_date, CURRENT_DATE), bb.due_date) as days_late, " +
-                          "f.amount, f.status " +
-                          "FROM fines f " +
-                          "JOIN book_borrowings bb ON f.borrow_id = bb.borrow_id " +
-                          "JOIN users u ON bb.user_id = u.user_id " +
-                          "JOIN books b ON bb.book_id = b.book_id " +
-                          "ORDER BY f.created_at DESC";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            double totalFines = 0;
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("fine_id"),
-                    rs.getString("full_name"),
-                    rs.getString("title"),
-                    rs.getDate("due_date"),
-                    rs.getInt("days_late"),
-                    String.format("$%.2f", rs.getDouble("amount")),
-                    rs.getString("status")
-                };
-                tableModel.addRow(row);
-                
-                if ("PENDING".equals(rs.getString("status"))) {
-                    totalFines += rs.getDouble("amount");
+        String query = "SELECT f.fine_id, u.full_name, b.title, bb.due_date, " +
+                      "DATEDIFF(IFNULL(bb.return_date, CURRENT_DATE), bb.due_date) as days_late, " +
+                      "f.amount, f.status " +
+                      "FROM fines f " +
+                      "JOIN book_borrowings bb ON f.borrow_id = bb.borrowing_id " +
+                      "JOIN users u ON bb.user_id = u.user_id " +
+                      "JOIN books b ON bb.book_id = b.book_id " +
+                      "ORDER BY f.created_at DESC";
+
+        // Run the four-way join off the EDT; the amount stays numeric until the row is displayed
+        DatabaseConnection.onEdt(
+            DatabaseConnection.query(query, null, rs -> new Object[]{
+                rs.getInt("fine_id"),
+                rs.getString("full_name"),
+                rs.getString("title"),
+                rs.getDate("due_date"),
+                rs.getInt("days_late"),
+                rs.getDouble("amount"),
+                rs.getString("status")
+            }),
+            rows -> {
+                double totalFines = 0;
+                for (Object[] row : rows) {
+                    double amount = (Double) row[5];
+                    if ("PENDING".equals(row[6])) {
+                        totalFines += amount;
+                    }
+                    row[5] = String.format("$%.2f", amount);
+                    tableModel.addRow(row);
                 }
+                updateTotalFines(totalFines);
+            },
+            e -> {
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error loading fines: " + e.getMessage());
             }
-            
-            updateTotalFines(totalFines);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading fines: " + e.getMessage());
-        }
+        );
     }
 
     private void recordPayment() {
@@ -177,14 +181,14 @@ public class FineManagementPanel extends JPanel {
             return;
         }
 
-        try {
-            Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getConnection()) {
             String query = "UPDATE fines SET status = 'PAID', paid_at = CURRENT_TIMESTAMP " +
                           "WHERE fine_id = ?";
             PreparedStatement pstmt = conn.prepareStatement(query);
             pstmt.setInt(1, (Integer) tableModel.getValueAt(selectedRow, 0));
             
             pstmt.executeUpdate();
+            DataVersions.bump(DataVersions.Domain.FINES);
             JOptionPane.showMessageDialog(this, "Payment recorded successfully!");
             searchFines();
             
@@ -212,14 +216,14 @@ public class FineManagementPanel extends JPanel {
             JOptionPane.YES_NO_OPTION);
             
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                Connection conn = DatabaseConnection.getConnection();
+            try (Connection conn = DatabaseConnection.getConnection()) {
                 String query = "UPDATE fines SET status = 'WAIVED', paid_at = CURRENT_TIMESTAMP " +
                               "WHERE fine_id = ?";
                 PreparedStatement pstmt = conn.prepareStatement(query);
                 pstmt.setInt(1, (Integer) tableModel.getValueAt(selectedRow, 0));
                 
                 pstmt.executeUpdate();
+                DataVersions.bump(DataVersions.Domain.FINES);
                 JOptionPane.showMessageDialog(this, "Fine waived successfully!");
                 searchFines();
                 
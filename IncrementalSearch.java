@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+// Search-as-you-type for a text field. Keystrokes restart a short timer and the search runs once
+// typing pauses, off the event thread. When the text changes again, the result of a search still
+// running is dropped; the query itself is only cancelled on the server once it has run for
+// library.search.cancelAfterMs, since each server-side cancel costs a connection. When the new
+// text only extends the text of the results on screen ("tolk" -> "tolki"), those results are
+// narrowed in memory with the matcher instead of searching again. Every callback runs on the
+// event thread.
+public class IncrementalSearch<T> {
+    private static final int DEBOUNCE_MS = Integer.getInteger("library.search.debounceMs", 150);
+    private static final long CANCEL_AFTER_MS = Long.getLong("library.search.cancelAfterMs", 1000);
+
+    private final JTextField field;
+    private final Function<String, CompletableFuture<List<T>>> source;
+    private final BiPredicate<T, String> matcher;
+    private final Runnable onEmpty;
+    private final Consumer<List<T>> onResults;
+    private final Consumer<Throwable> onError;
+    private final Timer timer;
+
+    private CompletableFuture<List<T>> pending;
+    private String shownText; // text of the results on screen, null when there are none to narrow
+    private List<T> shownResults;
+
+    public IncrementalSearch(JTextField field, Function<String, CompletableFuture<List<T>>> source,
+                             BiPredicate<T, String> matcher, Runnable onEmpty,
+                             Consumer<List<T>> onResults, Consumer<Throwable> onError) {
+        this.field = field;
+        this.source = source;
+        this.matcher = matcher;
+        this.onEmpty = onEmpty;
+        this.onResults = onResults;
+        this.onError = onError;
+
+        timer = new Timer(DEBOUNCE_MS, e -> run(false));
+        timer.setRepeats(false);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+        });
+    }
+
+    // Searches for the current text right away, for Enter or a Search button
+    public void runNow() {
+        timer.stop();
+        run(true);
+    }
+
+    // Forgets the results on screen, after the data or a filter behind them changed
+    public void reset() {
+        shownText = null;
+        shownResults = null;
+    }
+
+    // Text the results on screen were found for, or null while the unsearched list is shown
+    public String getShownText() {
+        return shownText;
+    }
+
+    private void run(boolean force) {
+        String text = field.getText().trim();
+        // Drop a search still running before anything else, even when the text went back to the
+        // one on screen ("ab" -> "abx" -> "ab"), or its late result would replace the results
+        if (pending != null) {
+            if (pending instanceof QueryFuture) {
+                ((QueryFuture<?>) pending).cancelIfRunningLongerThan(CANCEL_AFTER_MS);
+            } else {
+                pending.cancel(true);
+            }
+            pending = null;
+        }
+        if (!force && text.equals(shownText)) {
+            return;
+        }
+        if (text.isEmpty()) {
+            reset();
+            onEmpty.run();
+            return;
+        }
+
+        if (!force && shownText != null
+                && text.toLowerCase(Locale.ROOT).startsWith(shownText.toLowerCase(Locale.ROOT))) {
+            List<T> narrowed = new ArrayList<>();
+            for (T item : shownResults) {
+                if (matcher.test(item, text)) {
+                    narrowed.add(item);
+                }
+            }
+            show(text, narrowed);
+            return;
+        }
+
+        CompletableFuture<List<T>> search = source.apply(text);
+        pending = search;
+        DatabaseConnection.onEdt(search, results -> {
+            if (search != pending) {
+                return;
+            }
+            pending = null;
+            show(text, results);
+        }, error -> {
+            if (search != pending) {
+                return;
+            }
+            pending = null;
+            reset();
+            onError.accept(error);
+        });
+    }
+
+    private void show(String text, List<T> results) {
+        shownText = text;
+        shownResults = results;
+        onResults.accept(results);
+    }
+}
@@ -0,0 +1,197 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+// Connection proxy that times every statement execution and counts the rows it returns or changes,
+// recording the results in QueryMetrics under the statement's SQL shape. Executions slower than the
+// slow query threshold are handed to SlowQueryLog together with their bound parameters.
+public class InstrumentedConnection implements InvocationHandler {
+    private final Connection target;
+    private final QueryMetrics metrics;
+    private final SlowQueryLog slowLog;
+    private Connection proxy;
+
+    private InstrumentedConnection(Connection target, QueryMetrics metrics, SlowQueryLog slowLog) {
+        this.target = target;
+        this.metrics = metrics;
+        this.slowLog = slowLog;
+    }
+
+    public static Connection wrap(Connection target, QueryMetrics metrics, SlowQueryLog slowLog) {
+        InstrumentedConnection handler = new InstrumentedConnection(target, metrics, slowLog);
+        handler.proxy = (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            handler
+        );
+        return handler.proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+        }
+        Object result = call(target, method, args);
+        if (result instanceof Statement) {
+            String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+            return wrapStatement((Statement) result, sql);
+        }
+        return result;
+    }
+
+    private Statement wrapStatement(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class
+            : Statement.class;
+        return (Statement) Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[]{type},
+            new StatementHandler(statement, sql)
+        );
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private QueryMetrics.Stats lastStats;
+        private Object[] params = new Object[0];
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return InstrumentedConnection.this.proxy;
+                case "getResultSet":
+                    return wrapResultSet((ResultSet) call(target, method, args), proxy);
+            }
+            if (!name.startsWith("execute")) {
+                if (slowLog != null && preparedSql != null) {
+                    captureParameter(name, args);
+                }
+                return call(target, method, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String
+                ? (String) args[0] : preparedSql;
+            QueryMetrics.Stats stats = metrics.statsFor(sql != null ? sql : "(batch)");
+            lastStats = stats;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = call(target, method, args);
+            } catch (Throwable t) {
+                long elapsed = System.nanoTime() - start;
+                metrics.recordExecution(stats, elapsed, 0, true);
+                logIfSlow(sql, stats, elapsed, true);
+                throw t;
+            }
+            long elapsed = System.nanoTime() - start;
+            logIfSlow(sql, stats, elapsed, false);
+
+            if (result instanceof ResultSet) {
+                // Rows are counted as the caller walks the result set
+                metrics.recordExecution(stats, elapsed, 0, false);
+                return wrapResultSet((ResultSet) result, proxy);
+            }
+            metrics.recordExecution(stats, elapsed, updateCount(result), false);
+            return result;
+        }
+
+        // Remembers setXxx(index, value, ...) calls so a slow execution can be logged with its values
+        private void captureParameter(String name, Object[] args) {
+            if (name.equals("clearParameters")) {
+                params = new Object[0];
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0];
+                if (index > params.length) {
+                    params = Arrays.copyOf(params, index);
+                }
+                if (index >= 1) {
+                    params[index - 1] = name.equals("setNull") ? null : args[1];
+                }
+            }
+        }
+
+        private void logIfSlow(String sql, QueryMetrics.Stats stats, long elapsed, boolean failed) {
+            if (slowLog != null && sql != null && slowLog.isSlow(elapsed)) {
+                Object[] bound = preparedSql != null ? params.clone() : null;
+                slowLog.record(sql, stats.getShape(), bound, elapsed, failed);
+            }
+        }
+
+        private ResultSet wrapResultSet(ResultSet resultSet, Object statementProxy) {
+            if (resultSet == null || lastStats == null) {
+                return resultSet;
+            }
+            QueryMetrics.Stats stats = lastStats;
+            return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (rsProxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return rsProxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(rsProxy);
+                        case "getStatement":
+                            return statementProxy;
+                    }
+                    Object result = call(resultSet, method, args);
+                    if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                        stats.addRows(1);
+                    }
+                    return result;
+                }
+            );
+        }
+
+        private long updateCount(Object result) {
+            if (result instanceof Integer) {
+                return Math.max(0, (Integer) result);
+            }
+            if (result instanceof Long) {
+                return Math.max(0, (Long) result);
+            }
+            long total = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    total += Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    total += Math.max(0, count);
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -1,22 +1,22 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
-import java.util.Date;
-import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class IssueBooksPanel extends JPanel {
+public class IssueBooksPanel extends JPanel implements PanelRegistry.Refreshable {
     private int userId;
     private boolean isDarkMode;
     private Color darkBackground = new Color(33, 33, 33);
     private Color lightBackground = new Color(242, 242, 242);
     private JTable booksTable;
-    private DefaultTableModel tableModel;
+    private CatalogTableModel tableModel;
     private JTextField studentIdField;
     private JTextField searchField;
+    private IncrementalSearch<Book> search;
 
-    public IssueBooksPanel(int userId, boolean isDarkMode) {
-        this.userId = userId;
+    public IssueBooksPanel(Session session, boolean isDarkMode) {
+        this.userId = session.getUserId();
         this.isDarkMode = isDarkMode;
         
         setLayout(new BorderLayout(10, 10));
@@ -55,7 +55,18 @@ public class IssueBooksPanel extends JPanel {
         searchField = new JTextField(20);
         JButton searchButton = new JButton("Search");
         styleButton(searchButton);
-        searchButton.addActionListener(e -> searchBooks());
+        search = new IncrementalSearch<>(searchField, this::findBooks, BookCatalog::matches,
+            this::loadBooks,
+            books -> tableModel.setBooks(books),
+            ex -> {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this,
+                    "Error searching books: " + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            });
+        searchField.addActionListener(e -> search.runNow());
+        searchButton.addActionListener(e -> search.runNow());
         searchPanel.add(searchLabel);
         searchPanel.add(searchField);
         searchPanel.add(searchButton);
@@ -65,13 +76,9 @@ public class IssueBooksPanel extends JPanel {
         add(topPanel, BorderLayout.NORTH);
 
         // Create table
-        String[] columns = {"Book ID", "Title", "Author", "Category", "Available Quantity"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new CatalogTableModel(new CatalogTableModel.Column[]{
+            CatalogTableModel.Column.ID, CatalogTableModel.Column.TITLE, CatalogTableModel.Column.AUTHOR,
+            CatalogTableModel.Column.CATEGORY, CatalogTableModel.Column.AVAILABLE}, "Book ID");
 
         booksTable = new JTable(tableModel);
         booksTable.setFont(new Font("Segoe UI", Font.PLAIN, 12));
@@ -96,7 +103,7 @@ public class IssueBooksPanel extends JPanel {
 
         issueButton.addActionListener(e -> issueBook());
         clearButton.addActionListener(e -> clearFields());
-        refreshButton.addActionListener(e -> loadBooks());
+        refreshButton.addActionListener(e -> refresh());
 
         buttonPanel.add(issueButton);
         buttonPanel.add(clearButton);
@@ -112,74 +119,28 @@ public class IssueBooksPanel extends JPanel {
         button.setFont(new Font("Segoe UI", Font.PLAIN, 14));
     }
 
-    private void loadBooks() {
-        tableModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT book_id, title, author, category, available_quantity " +
-                "FROM books WHERE is_active = 1 AND available_quantity > 0"
-            );
-            ResultSet rs = stmt.executeQuery();
+    @Override
+    public void refresh() {
+        search.reset();
+        search.runNow();
+    }
 
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("category"),
-                    rs.getInt("available_quantity")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException ex) {
+    private void loadBooks() {
+        tableModel.showAvailable(ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this,
                 "Error loading books: " + ex.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
-    private void searchBooks() {
-        String searchText = searchField.getText().trim();
-        if (searchText.isEmpty()) {
-            loadBooks();
-            return;
-        }
-
-        tableModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT book_id, title, author, category, available_quantity " +
-                "FROM books WHERE is_active = 1 AND available_quantity > 0 " +
-                "AND (title LIKE ? OR author LIKE ? OR category LIKE ?)"
-            );
-            String pattern = "%" + searchText + "%";
-            stmt.setString(1, pattern);
-            stmt.setString(2, pattern);
-            stmt.setString(3, pattern);
-            
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("category"),
-                    rs.getInt("available_quantity")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error searching books: " + ex.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
+    private CompletableFuture<List<Book>> findBooks(String text) {
+        if (CatalogSnapshot.isEnabled()) {
+            // Snapshot catalogs are too large to index in memory, so they are searched in the database
+            return BookRepository.searchAvailable(text);
         }
+        return DatabaseConnection.supply(() -> BookCatalog.search(text, true));
     }
 
     private void issueBook() {
@@ -202,119 +163,55 @@ public class IssueBooksPanel extends JPanel {
             return;
         }
 
+        int studentId;
         try {
-            int studentId = Integer.parseInt(studentIdText);
-            int bookId = (int) tableModel.getValueAt(selectedRow, 0);
-            
-            Connection conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            try {
-                // Verify student exists and is active
-                PreparedStatement checkStudent = conn.prepareStatement(
-                    "SELECT is_active FROM users WHERE user_id = ? AND role = 'STUDENT'"
-                );
-                checkStudent.setInt(1, studentId);
-                ResultSet studentRs = checkStudent.executeQuery();
-
-                if (!studentRs.next()) {
-                    throw new Exception("Student ID not found");
-                }
-
-                if (!studentRs.getBoolean("is_active")) {
-                    throw new Exception("Student account is not active");
-                }
-
-                // Check if student has any overdue books
-                PreparedStatement checkOverdue = conn.prepareStatement(
-                    "SELECT COUNT(*) FROM book_borrowings " +
-                    "WHERE user_id = ? AND status = 'BORROWED' AND due_date < CURRENT_DATE"
-                );
-                checkOverdue.setInt(1, studentId);
-                ResultSet overdueRs = checkOverdue.executeQuery();
-                overdueRs.next();
-                if (overdueRs.getInt(1) > 0) {
-                    throw new Exception("Student has overdue books");
-                }
-
-                // Check if student already has this book
-                PreparedStatement checkBorrowed = conn.prepareStatement(
-                    "SELECT COUNT(*) FROM book_borrowings " +
-                    "WHERE user_id = ? AND book_id = ? AND status = 'BORROWED'"
-                );
-                checkBorrowed.setInt(1, studentId);
-                checkBorrowed.setInt(2, bookId);
-                ResultSet borrowedRs = checkBorrowed.executeQuery();
-                borrowedRs.next();
-                if (borrowedRs.getInt(1) > 0) {
-                    throw new Exception("Student already has this book");
-                }
+            studentId = Integer.parseInt(studentIdText);
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this,
+                "Invalid student ID format",
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        int bookId = tableModel.getBookId(selectedRow);
+
+        // Checkout retries on deadlocks, so it runs off the EDT
+        CompletableFuture<CheckoutResult> checkout = DatabaseConnection.supply(() -> {
+            CheckoutResult result = BorrowingRepository.checkout(studentId, bookId);
+            if (result == CheckoutResult.OK || result == CheckoutResult.UNAVAILABLE) {
+                // Take the stored count, whether it was stale or just changed
+                BookCatalog.refresh(bookId);
+            }
+            return result;
+        });
 
-                // Update book quantity
-                PreparedStatement updateBook = conn.prepareStatement(
-                    "UPDATE books SET available_quantity = available_quantity - 1 " +
-                    "WHERE book_id = ? AND available_quantity > 0"
-                );
-                updateBook.setInt(1, bookId);
-                int updated = updateBook.executeUpdate();
-                if (updated == 0) {
-                    throw new Exception("Book not available");
+        DatabaseConnection.onEdt(checkout, result -> {
+            if (result != CheckoutResult.OK) {
+                if (result == CheckoutResult.UNAVAILABLE) {
+                    refresh();
                 }
-
-                // Create borrowing record
-                Calendar cal = Calendar.getInstance();
-                Date borrowDate = new Date();
-                cal.setTime(borrowDate);
-                cal.add(Calendar.DAY_OF_MONTH, 14); // 14 days borrowing period
-                Date dueDate = cal.getTime();
-
-                PreparedStatement insertBorrowing = conn.prepareStatement(
-                    "INSERT INTO book_borrowings (book_id, user_id, borrow_date, due_date, status) " +
-                    "VALUES (?, ?, ?, ?, 'BORROWED')"
-                );
-                insertBorrowing.setInt(1, bookId);
-                insertBorrowing.setInt(2, studentId);
-                insertBorrowing.setDate(3, new java.sql.Date(borrowDate.getTime()));
-                insertBorrowing.setDate(4, new java.sql.Date(dueDate.getTime()));
-                insertBorrowing.executeUpdate();
-
-                // Create notification
-                PreparedStatement insertNotification = conn.prepareStatement(
-                    "INSERT INTO notifications (user_id, message, is_read) " +
-                    "VALUES (?, ?, false)"
-                );
-                insertNotification.setInt(1, studentId);
-                insertNotification.setString(2, "Book '" + tableModel.getValueAt(selectedRow, 1) + 
-                    "' has been issued to you. Due date: " + new java.sql.Date(dueDate.getTime()));
-                insertNotification.executeUpdate();
-
-                conn.commit();
                 JOptionPane.showMessageDialog(this,
-                    "Book issued successfully",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-                loadBooks(); // Refresh the table
-                clearFields();
-
-            } catch (Exception ex) {
-                conn.rollback();
-                throw ex;
-            } finally {
-                conn.setAutoCommit(true);
+                    "Error issuing book: " + result.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            LibraryStats.loanOpened();
 
-        } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this,
-                "Invalid student ID format",
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        } catch (Exception ex) {
+                "Book issued successfully",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+
+            clearFields();
+            refresh(); // Refresh the table
+        }, ex -> {
+            ex.printStackTrace();
             JOptionPane.showMessageDialog(this,
                 "Error issuing book: " + ex.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private void clearFields() {
@@ -5,6 +5,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
 
 public class IssuedBooksPanel extends JPanel {
     private int userId;
@@ -12,8 +14,8 @@ public class IssuedBooksPanel extends JPanel {
     private Color darkBackground = new Color(33, 33, 33);
     private Color lightBackground = new Color(242, 242, 242);
 
-    public IssuedBooksPanel(int userId, boolean isDarkMode) {
-        this.userId = userId;
+    public IssuedBooksPanel(Session session, boolean isDarkMode) {
+        this.userId = session.getUserId();
         this.isDarkMode = isDarkMode;
         
         setLayout(new BorderLayout(10, 10));
@@ -72,15 +74,29 @@ public class IssuedBooksPanel extends JPanel {
         add(scrollPane, BorderLayout.CENTER);
 
         // Add action listeners
-        searchButton.addActionListener(e -> {
-            String searchText = searchField.getText().trim();
-            String filterStatus = (String) filterCombo.getSelectedItem();
-            searchIssuedBooks(model, searchText, filterStatus);
-        });
+        IncrementalSearch<Object[]> search = new IncrementalSearch<>(searchField,
+            text -> searchIssuedBooks(text, (String) filterCombo.getSelectedItem()),
+            IssuedBooksPanel::matches,
+            () -> loadIssuedBooks(model, (String) filterCombo.getSelectedItem()),
+            rows -> {
+                model.setRowCount(0);
+                for (Object[] row : rows) {
+                    model.addRow(row);
+                }
+            },
+            ex -> {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this,
+                    "Error searching issued books: " + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            });
+        searchField.addActionListener(e -> search.runNow());
+        searchButton.addActionListener(e -> search.runNow());
 
         filterCombo.addActionListener(e -> {
-            String filterStatus = (String) filterCombo.getSelectedItem();
-            loadIssuedBooks(model, filterStatus);
+            search.reset();
+            search.runNow();
         });
 
         // Add statistics panel
@@ -92,8 +108,7 @@ public class IssuedBooksPanel extends JPanel {
 
     private void loadIssuedBooks(DefaultTableModel model, String filter) {
         model.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getConnection()) {
             String sql = "SELECT b.book_id, b.title, bb.user_id, u.full_name, " +
                         "bb.borrow_date, bb.due_date, bb.status " +
                         "FROM book_borrowings bb " +
@@ -112,16 +127,7 @@ public class IssuedBooksPanel extends JPanel {
 
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getInt("user_id"),
-                    rs.getString("full_name"),
-                    rs.getDate("borrow_date"),
-                    rs.getDate("due_date"),
-                    rs.getString("status")
-                };
-                model.addRow(row);
+                model.addRow(toRow(rs));
             }
         } catch (SQLException ex) {
             ex.printStackTrace();
@@ -132,79 +138,65 @@ public class IssuedBooksPanel extends JPanel {
         }
     }
 
-    private void searchIssuedBooks(DefaultTableModel model, String searchText, String filter) {
-        model.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String sql = "SELECT b.book_id, b.title, bb.user_id, u.full_name, " +
-                        "bb.borrow_date, bb.due_date, bb.status " +
-                        "FROM book_borrowings bb " +
-                        "JOIN books b ON bb.book_id = b.book_id " +
-                        "JOIN users u ON bb.user_id = u.user_id " +
-                        "WHERE (b.title LIKE ? OR u.full_name LIKE ?) ";
+    private QueryFuture<List<Object[]>> searchIssuedBooks(String searchText, String filter) {
+        String sql = "SELECT b.book_id, b.title, bb.user_id, u.full_name, " +
+                    "bb.borrow_date, bb.due_date, bb.status " +
+                    "FROM book_borrowings bb " +
+                    "JOIN books b ON bb.book_id = b.book_id " +
+                    "JOIN users u ON bb.user_id = u.user_id " +
+                    "WHERE (b.title LIKE ? OR u.full_name LIKE ?) ";
 
-            if (!filter.equals("All")) {
-                sql += "AND bb.status = ? ";
-            }
-            sql += "ORDER BY bb.borrow_date DESC";
+        if (!filter.equals("All")) {
+            sql += "AND bb.status = ? ";
+        }
+        sql += "ORDER BY bb.borrow_date DESC";
 
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        return DatabaseConnection.query(sql, stmt -> {
             stmt.setString(1, "%" + searchText + "%");
             stmt.setString(2, "%" + searchText + "%");
             if (!filter.equals("All")) {
                 stmt.setString(3, filter.toUpperCase());
             }
+        }, IssuedBooksPanel::toRow);
+    }
 
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getInt("user_id"),
-                    rs.getString("full_name"),
-                    rs.getDate("borrow_date"),
-                    rs.getDate("due_date"),
-                    rs.getString("status")
-                };
-                model.addRow(row);
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error searching issued books: " + ex.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+    private static Object[] toRow(ResultSet rs) throws SQLException {
+        return new Object[]{
+            rs.getInt("book_id"),
+            rs.getString("title"),
+            rs.getInt("user_id"),
+            rs.getString("full_name"),
+            rs.getDate("borrow_date"),
+            rs.getDate("due_date"),
+            rs.getString("status")
+        };
+    }
+
+    // Same test as the LIKE in searchIssuedBooks, for narrowing rows already on screen
+    private static boolean matches(Object[] row, String text) {
+        String needle = text.toLowerCase(Locale.ROOT);
+        return contains(row[1], needle) || contains(row[3], needle);
+    }
+
+    private static boolean contains(Object value, String needle) {
+        return value != null && value.toString().toLowerCase(Locale.ROOT).contains(needle);
     }
 
     private void updateStatistics(JPanel statsPanel) {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // Get total issued books
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT COUNT(*) as total, " +
-                "SUM(CASE WHEN status = 'BORROWED' THEN 1 ELSE 0 END) as current, " +
-                "SUM(CASE WHEN status = 'BORROWED' AND due_date < CURRENT_DATE THEN 1 ELSE 0 END) as overdue " +
-                "FROM book_borrowings"
-            );
-            
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                JLabel totalLabel = new JLabel("Total Issues: " + rs.getInt("total"));
-                JLabel currentLabel = new JLabel("Currently Issued: " + rs.getInt("current"));
-                JLabel overdueLabel = new JLabel("Overdue: " + rs.getInt("overdue"));
-                
-                totalLabel.setForeground(isDarkMode ? Color.WHITE : Color.BLACK);
-                currentLabel.setForeground(isDarkMode ? Color.WHITE : Color.BLACK);
-                overdueLabel.setForeground(Color.RED);
-                
-                statsPanel.add(totalLabel);
-                statsPanel.add(Box.createHorizontalStrut(20));
-                statsPanel.add(currentLabel);
-                statsPanel.add(Box.createHorizontalStrut(20));
-                statsPanel.add(overdueLabel);
-            }
+            JLabel totalLabel = new JLabel("Total Issues: " + LibraryStats.getTotalLoans());
+            JLabel currentLabel = new JLabel("Currently Issued: " + LibraryStats.getActiveLoans());
+            JLabel overdueLabel = new JLabel("Overdue: " + LibraryStats.getOverdueLoans());
+
+            totalLabel.setForeground(isDarkMode ? Color.WHITE : Color.BLACK);
+            currentLabel.setForeground(isDarkMode ? Color.WHITE : Color.BLACK);
+            overdueLabel.setForeground(Color.RED);
+
+            statsPanel.add(totalLabel);
+            statsPanel.add(Box.createHorizontalStrut(20));
+            statsPanel.add(currentLabel);
+            statsPanel.add(Box.createHorizontalStrut(20));
+            statsPanel.add(overdueLabel);
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
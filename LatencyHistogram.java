@@ -0,0 +1,107 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free latency histogram with log-linear buckets (8 sub-buckets per power of two, in microseconds)
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int MAX_MAGNITUDE = 40;
+    private static final int BUCKET_COUNT = SUB_BUCKETS * (MAX_MAGNITUDE - 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketIndex(nanos / 1000));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanMillis() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : totalNanos.get() / 1_000_000.0 / count;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), in milliseconds
+    public double getPercentileMillis(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(bucketUpperMicros(i) / 1000.0, maxNanos.get() / 1_000_000.0);
+            }
+        }
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    // Counts of samples at or below each of the given limits (in milliseconds), plus one overflow slot
+    public long[] getCumulativeCounts(long... limitsMillis) {
+        long[] result = new long[limitsMillis.length + 1];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = counts.get(i);
+            if (c == 0) {
+                continue;
+            }
+            long upperMicros = bucketUpperMicros(i);
+            int slot = limitsMillis.length;
+            for (int j = 0; j < limitsMillis.length; j++) {
+                if (upperMicros <= limitsMillis[j] * 1000) {
+                    slot = j;
+                    break;
+                }
+            }
+            result[slot] += c;
+        }
+        return result;
+    }
+
+    public String summary() {
+        return String.format("n=%d mean=%.2fms p50=%.2fms p99=%.2fms max=%.2fms",
+            getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(99),
+            getMaxNanos() / 1_000_000.0);
+    }
+
+    private static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude >= MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (micros >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS * (magnitude - SUB_BUCKET_BITS + 1) + sub;
+    }
+
+    private static long bucketUpperMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (magnitude - SUB_BUCKET_BITS);
+    }
+}
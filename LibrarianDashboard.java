@@ -8,10 +8,22 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.Map;
 
 public class LibrarianDashboard extends JFrame {
+    // Menu entries and quick actions shown only when the session holds the permission
+    private static final Map<String, Session.Permission> MENU_PERMISSIONS = Map.of(
+        "Manage Books", Session.Permission.MANAGE_BOOKS,
+        "Issue Books", Session.Permission.ISSUE_BOOKS,
+        "View Issued Books", Session.Permission.ISSUE_BOOKS,
+        "Return Books", Session.Permission.ISSUE_BOOKS,
+        "Student Records", Session.Permission.VIEW_STUDENT_RECORDS);
+
+    private Session session;
     private int userId;
-    private JPanel contentPanel;
+    private StudentLoanState loanState;
+    private ChangeFeed.Listener loanListener;
+    private PanelRegistry contentPanel;
     private boolean isDarkMode = false;
     private Color darkBackground = new Color(33, 33, 33);
     private Color lightBackground = new Color(242, 242, 242);
@@ -21,37 +33,25 @@ public class LibrarianDashboard extends JFrame {
     private JPanel menuPanel;
     private String librarianName;
 
-    public LibrarianDashboard(int userId) {
-        this.userId = userId;
+    public LibrarianDashboard(Session session) {
+        this.session = session;
+        this.userId = session.getUserId();
+        // The librarian's own loans, shared by every screen of this dashboard like a student's
+        this.loanState = new StudentLoanState(userId);
+        this.loanListener = (entity, id) -> {
+            if ((entity == ChangeFeed.Entity.LOAN || entity == ChangeFeed.Entity.FINE)
+                    && (id == userId || id == ChangeFeed.ALL)) {
+                loanState.invalidate();
+            }
+        };
+        ChangeFeed.addListener(loanListener);
+        this.isDarkMode = session.isDarkMode();
         setTitle("Library Management System - Librarian Dashboard");
         setSize(1200, 800);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        // Get librarian name from database
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement("SELECT full_name, username FROM users WHERE user_id = ?");
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                librarianName = rs.getString("full_name");
-                if (librarianName == null || librarianName.trim().isEmpty()) {
-                    librarianName = rs.getString("username");
-                }
-                if (librarianName == null || librarianName.trim().isEmpty()) {
-                    librarianName = "Librarian";
-                }
-            } else {
-                librarianName = "Librarian";
-            }
-            rs.close();
-            stmt.close();
-            conn.close();
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            librarianName = "Librarian";
-        }
+        librarianName = session.getDisplayName("Librarian");
 
         // Create split pane
         JSplitPane splitPane = new JSplitPane();
@@ -59,10 +59,9 @@ public class LibrarianDashboard extends JFrame {
         
         // Create menu panel
         menuPanel = createMenuPanel();
-        contentPanel = new JPanel();
-        contentPanel.setLayout(new BorderLayout());
-        
-        showWelcomeMessage();
+        contentPanel = new PanelRegistry();
+        registerPanels();
+        contentPanel.show("Home");
 
         splitPane.setLeftComponent(menuPanel);
         splitPane.setRightComponent(contentPanel);
@@ -70,6 +69,7 @@ public class LibrarianDashboard extends JFrame {
         splitPane.setDividerSize(1);
 
         add(splitPane);
+        add(new ConnectionStatusBar(), BorderLayout.SOUTH);
         applyTheme();
     }
 
@@ -137,6 +137,9 @@ public class LibrarianDashboard extends JFrame {
             "", "", "", "", "", "", "", ""
         };
         for (int i = 0; i < menuItems.length; i++) {
+            if (!isAllowed(menuItems[i])) {
+                continue;
+            }
             JPanel buttonPanel = new JPanel(new BorderLayout());
             buttonPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 50));
             buttonPanel.setOpaque(false);
@@ -148,6 +151,11 @@ public class LibrarianDashboard extends JFrame {
         return panel;
     }
 
+    private boolean isAllowed(String menuItem) {
+        Session.Permission required = MENU_PERMISSIONS.get(menuItem);
+        return required == null || session.has(required);
+    }
+
     private JButton createMenuButton(String text, String icon) {
         JButton button = new JButton(icon + "  " + text);
         button.setFont(new Font("Segoe UI", Font.PLAIN, 14));
@@ -193,6 +201,7 @@ public class LibrarianDashboard extends JFrame {
                 break;
             case "Toggle Theme":
                 isDarkMode = !isDarkMode;
+                contentPanel.clear();
                 applyTheme();
                 break;
             case "Logout":
@@ -224,8 +233,24 @@ public class LibrarianDashboard extends JFrame {
         SwingUtilities.updateComponentTreeUI(this);
     }
 
-    private void showWelcomeMessage() {
-        contentPanel.removeAll();
+    // Screens are built on first show and reloaded only when the books or loans they list have changed
+    private void registerPanels() {
+        contentPanel.register("Home", this::createWelcomePanel, DataVersions.Domain.BOOKS, DataVersions.Domain.LOANS);
+        contentPanel.register("Manage Books", () -> new BookManagementPanel(session, isDarkMode),
+            DataVersions.Domain.BOOKS);
+        contentPanel.register("Issue Books", () -> new IssueBooksPanel(session, isDarkMode),
+            DataVersions.Domain.BOOKS, DataVersions.Domain.LOANS);
+        contentPanel.register("View Issued Books", () -> new IssuedBooksPanel(session, isDarkMode),
+            DataVersions.Domain.LOANS);
+        contentPanel.register("Return Books", () -> new ReturnBooksPanel(loanState, isDarkMode),
+            DataVersions.Domain.LOANS);
+        contentPanel.register("Student Records", () -> new StudentRecordsPanel(session, isDarkMode),
+            DataVersions.Domain.LOANS, DataVersions.Domain.USERS);
+        // New notifications are written by other desks (issues, approvals), so reload on every visit
+        contentPanel.registerAlwaysRefreshed("Notifications", () -> new NotificationPanel(session, isDarkMode));
+    }
+
+    private JPanel createWelcomePanel() {
         JPanel welcomePanel = new JPanel(new GridBagLayout());
         welcomePanel.setBackground(isDarkMode ? darkBackground : lightBackground);
         GridBagConstraints gbc = new GridBagConstraints();
@@ -240,28 +265,12 @@ public class LibrarianDashboard extends JFrame {
         statsPanel.setOpaque(false);
         statsPanel.setMaximumSize(new Dimension(800, 150));
         try {
-            Connection conn = DatabaseConnection.getConnection();
             // Total books
-            PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM books");
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                statsPanel.add(createStatCard("", "Total Books", String.valueOf(rs.getInt(1))));
-            }
+            statsPanel.add(createStatCard("", "Total Books", String.valueOf(LibraryStats.getActiveBooks())));
             // Issued books
-            stmt = conn.prepareStatement("SELECT COUNT(*) FROM book_borrowings WHERE status = 'BORROWED'");
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                statsPanel.add(createStatCard("", "Books Issued", String.valueOf(rs.getInt(1))));
-            }
+            statsPanel.add(createStatCard("", "Books Issued", String.valueOf(LibraryStats.getActiveLoans())));
             // Overdue books
-            stmt = conn.prepareStatement("SELECT COUNT(*) FROM book_borrowings WHERE status = 'BORROWED' AND return_date < CURRENT_DATE");
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                statsPanel.add(createStatCard("", "Overdue Books", String.valueOf(rs.getInt(1))));
-            }
-            rs.close();
-            stmt.close();
-            conn.close();
+            statsPanel.add(createStatCard("", "Overdue Books", String.valueOf(LibraryStats.getOverdueLoans())));
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
@@ -270,15 +279,13 @@ public class LibrarianDashboard extends JFrame {
         JPanel quickActionsPanel = new JPanel(new GridLayout(2, 2, 20, 20));
         quickActionsPanel.setOpaque(false);
         quickActionsPanel.setMaximumSize(new Dimension(800, 200));
-        quickActionsPanel.add(createQuickActionCard("Manage Books", "", "Add, edit, or remove books"));
-        quickActionsPanel.add(createQuickActionCard("Issue Books", "", "Issue books to students"));
-        quickActionsPanel.add(createQuickActionCard("Student Records", "", "View student records"));
-        quickActionsPanel.add(createQuickActionCard("Notifications", "", "View notifications"));
+        addQuickAction(quickActionsPanel, "Manage Books", "", "Add, edit, or remove books");
+        addQuickAction(quickActionsPanel, "Issue Books", "", "Issue books to students");
+        addQuickAction(quickActionsPanel, "Student Records", "", "View student records");
+        addQuickAction(quickActionsPanel, "Notifications", "", "View notifications");
         gbc.insets = new Insets(20, 20, 20, 20);
         welcomePanel.add(quickActionsPanel, gbc);
-        contentPanel.add(welcomePanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        return welcomePanel;
     }
 
     private JPanel createStatCard(String icon, String title, String value) {
@@ -305,6 +312,12 @@ public class LibrarianDashboard extends JFrame {
         return card;
     }
 
+    private void addQuickAction(JPanel panel, String title, String icon, String description) {
+        if (isAllowed(title)) {
+            panel.add(createQuickActionCard(title, icon, description));
+        }
+    }
+
     private JPanel createQuickActionCard(String title, String icon, String description) {
         JPanel card = new JPanel(new BorderLayout());
         card.setBackground(isDarkMode ? new Color(50, 50, 50) : Color.WHITE);
@@ -356,95 +369,27 @@ public class LibrarianDashboard extends JFrame {
     }
 
     private void showBookManagement() {
-        contentPanel.removeAll();
-        try {
-            BookManagementPanel bookPanel = new BookManagementPanel(userId , isDarkMode);
-            contentPanel.add(bookPanel);
-        } catch (Exception ex) {
-            showErrorMessage("Error loading book management panel: " + ex.getMessage());
-            ex.printStackTrace();
-        }
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Manage Books");
     }
 
     private void showIssueBooks() {
-        contentPanel.removeAll();
-        try {
-            IssueBooksPanel issuePanel = new IssueBooksPanel(userId, isDarkMode);
-            contentPanel.add(issuePanel);
-        } catch (Exception ex) {
-            showErrorMessage("Error loading issue books panel: " + ex.getMessage());
-            ex.printStackTrace();
-        }
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Issue Books");
     }
 
     private void showIssuedBooks() {
-        contentPanel.removeAll();
-        try {
-            IssuedBooksPanel issuedBooksPanel = new IssuedBooksPanel(userId, isDarkMode);
-            contentPanel.add(issuedBooksPanel);
-        } catch (Exception ex) {
-            showErrorMessage("Error loading issued books panel: " + ex.getMessage());
-            ex.printStackTrace();
-        }
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("View Issued Books");
     }
 
     private void showReturnBooks() {
-        contentPanel.removeAll();
-        try {
-            ReturnBooksPanel returnPanel = new ReturnBooksPanel(userId, isDarkMode);
-            contentPanel.add(returnPanel);
-        } catch (Exception ex) {
-            showErrorMessage("Error loading return books panel: " + ex.getMessage());
-            ex.printStackTrace();
-        }
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Return Books");
     }
 
     private void showStudentRecords() {
-        contentPanel.removeAll();
-        try {
-            StudentRecordsPanel studentPanel = new StudentRecordsPanel(userId, isDarkMode);
-            contentPanel.add(studentPanel);
-        } catch (Exception ex) {
-            showErrorMessage("Error loading student records panel: " + ex.getMessage());
-            ex.printStackTrace();
-        }
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Student Records");
     }
 
     private void showNotifications() {
-        contentPanel.removeAll();
-        try {
-            NotificationPanel notificationPanel = new NotificationPanel(userId, isDarkMode);
-            contentPanel.add(notificationPanel);
-        } catch (Exception ex) {
-            showErrorMessage("Error loading notifications panel: " + ex.getMessage());
-            ex.printStackTrace();
-        }
-        contentPanel.revalidate();
-        contentPanel.repaint();
-    }
-
-    private void showErrorMessage(String message) {
-        JPanel errorPanel = new JPanel(new GridBagLayout());
-        errorPanel.setBackground(isDarkMode ? darkBackground : lightBackground);
-        
-        JLabel errorLabel = new JLabel(message);
-        errorLabel.setForeground(Color.RED);
-        errorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        
-        errorPanel.add(errorLabel);
-        contentPanel.add(errorPanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Notifications");
     }
 
     private void handleLogout() {
@@ -456,6 +401,7 @@ public class LibrarianDashboard extends JFrame {
         );
         
         if (confirm == JOptionPane.YES_OPTION) {
+            ChangeFeed.removeListener(loanListener);
             this.dispose();
             new LoginScreen().setVisible(true);
         }
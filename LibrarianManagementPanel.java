@@ -3,7 +3,7 @@ import javax.swing.table.*;
 import java.awt.*;
 import java.sql.*;
 
-public class LibrarianManagementPanel extends JPanel {
+public class LibrarianManagementPanel extends JPanel implements PanelRegistry.Refreshable {
     private JTable librarianTable;
     private DefaultTableModel tableModel;
     private Color backgroundColor;
@@ -112,8 +112,7 @@ public class LibrarianManagementPanel extends JPanel {
                 JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                Connection conn = DatabaseConnection.getConnection();
+            try (Connection conn = DatabaseConnection.getConnection()) {
                 PreparedStatement stmt = conn.prepareStatement(
                     "UPDATE users SET is_active = false WHERE user_id = ? AND role = 'LIBRARIAN'"
                 );
@@ -121,6 +120,7 @@ public class LibrarianManagementPanel extends JPanel {
                 
                 int result = stmt.executeUpdate();
                 if (result > 0) {
+                    LibraryStats.userDeactivated();
                     JOptionPane.showMessageDialog(this, 
                         "Librarian " + username + " has been deactivated successfully",
                         "Success",
@@ -165,8 +165,7 @@ public class LibrarianManagementPanel extends JPanel {
                 JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                Connection conn = DatabaseConnection.getConnection();
+            try (Connection conn = DatabaseConnection.getConnection()) {
                 PreparedStatement stmt = conn.prepareStatement(
                     "UPDATE users SET is_active = true WHERE user_id = ? AND role = 'LIBRARIAN'"
                 );
@@ -174,6 +173,7 @@ public class LibrarianManagementPanel extends JPanel {
                 
                 int result = stmt.executeUpdate();
                 if (result > 0) {
+                    LibraryStats.userActivated();
                     JOptionPane.showMessageDialog(this, 
                         "Librarian " + username + " has been reactivated successfully",
                         "Success",
@@ -217,8 +217,7 @@ public class LibrarianManagementPanel extends JPanel {
         JTextField emailField = new JTextField(20);
 
         // Load current values
-        try {
-            Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getConnection()) {
             PreparedStatement stmt = conn.prepareStatement(
                 "SELECT full_name, email FROM users WHERE user_id = ? AND role = 'LIBRARIAN'"
             );
@@ -252,8 +251,7 @@ public class LibrarianManagementPanel extends JPanel {
         JButton cancelButton = createStyledButton("Cancel");
 
         updateButton.addActionListener(e -> {
-            try {
-                Connection conn = DatabaseConnection.getConnection();
+            try (Connection conn = DatabaseConnection.getConnection()) {
                 PreparedStatement stmt = conn.prepareStatement(
                     "UPDATE users SET full_name = ?, email = ? WHERE user_id = ? AND role = 'LIBRARIAN'"
                 );
@@ -264,6 +262,7 @@ public class LibrarianManagementPanel extends JPanel {
                 
                 int result = stmt.executeUpdate();
                 if (result > 0) {
+                    UserIdentifiers.added(null, emailField.getText());
                     JOptionPane.showMessageDialog(dialog, "Librarian updated successfully");
                     loadLibrarians();
                     dialog.dispose();
@@ -331,8 +330,7 @@ public class LibrarianManagementPanel extends JPanel {
         JButton cancelButton = createStyledButton("Cancel");
 
         addButton.addActionListener(e -> {
-            try {
-                Connection conn = DatabaseConnection.getConnection();
+            try (Connection conn = DatabaseConnection.getConnection()) {
                 PreparedStatement stmt = conn.prepareStatement(
                     "INSERT INTO users (username, password, full_name, email, role, is_active) " +
                     "VALUES (?, ?, ?, ?, 'LIBRARIAN', true)"
@@ -345,6 +343,8 @@ public class LibrarianManagementPanel extends JPanel {
                 
                 int result = stmt.executeUpdate();
                 if (result > 0) {
+                    LibraryStats.userAdded(true);
+                    UserIdentifiers.added(usernameField.getText(), emailField.getText());
                     JOptionPane.showMessageDialog(dialog, "Librarian added successfully");
                     loadLibrarians();
                     dialog.dispose();
@@ -367,23 +367,21 @@ public class LibrarianManagementPanel extends JPanel {
         dialog.setVisible(true);
     }
 
+    @Override
+    public void refresh() {
+        loadLibrarians();
+    }
+
     private void loadLibrarians() {
         tableModel.setRowCount(0);
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT user_id, username, full_name, email, is_active " +
-                "FROM users WHERE role = 'LIBRARIAN' ORDER BY user_id"
-            );
-            
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
+            for (User librarian : UserRepository.findByRole("LIBRARIAN")) {
                 Object[] row = {
-                    rs.getInt("user_id"),
-                    rs.getString("username"),
-                    rs.getString("full_name"),
-                    rs.getString("email"),
-                    rs.getBoolean("is_active") ? "Active" : "Inactive"
+                    librarian.getId(),
+                    librarian.getUsername(),
+                    librarian.getFullName(),
+                    librarian.getEmail(),
+                    librarian.isActive() ? "Active" : "Inactive"
                 };
                 tableModel.addRow(row);
             }
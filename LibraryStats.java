@@ -0,0 +1,176 @@
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Dashboard counters kept in memory. They are counted once on first use, moved by deltas from the
+// code paths that change them (issue/return, approvals, book add/remove), and recounted in the
+// background every few minutes to pick up anything the deltas missed, such as loans becoming
+// overdue or writes from another desk. Reading a counter never touches the database after that.
+public class LibraryStats {
+    private static final long RECONCILE_SECONDS = Long.getLong("library.stats.reconcileSeconds", 120);
+    private static final long REMOTE_RECONCILE_DELAY_MS = Long.getLong("library.stats.remoteReconcileDelayMs", 2000);
+
+    private static final LongAdder activeUsers = new LongAdder();
+    private static final LongAdder pendingApprovals = new LongAdder();
+    private static final LongAdder activeBooks = new LongAdder();
+    private static final LongAdder totalLoans = new LongAdder();
+    private static final LongAdder activeLoans = new LongAdder();
+    private static final LongAdder overdueLoans = new LongAdder();
+
+    private static volatile boolean loaded = false;
+    private static ScheduledExecutorService reconciler;
+    private static final AtomicBoolean reconcileQueued = new AtomicBoolean();
+
+    private LibraryStats() {
+    }
+
+    public static long getActiveUsers() throws SQLException {
+        ensureLoaded();
+        return activeUsers.sum();
+    }
+
+    // Accounts with is_active = false: new sign-ups and deactivated accounts
+    public static long getPendingApprovals() throws SQLException {
+        ensureLoaded();
+        return pendingApprovals.sum();
+    }
+
+    public static long getActiveBooks() throws SQLException {
+        ensureLoaded();
+        return activeBooks.sum();
+    }
+
+    public static long getTotalLoans() throws SQLException {
+        ensureLoaded();
+        return totalLoans.sum();
+    }
+
+    public static long getActiveLoans() throws SQLException {
+        ensureLoaded();
+        return activeLoans.sum();
+    }
+
+    public static long getOverdueLoans() throws SQLException {
+        ensureLoaded();
+        return overdueLoans.sum();
+    }
+
+    // Counted on every read: nothing in this client writes book_requests, so there is no delta to
+    // keep a cached count current. A student's own loans are tracked by their StudentLoanState.
+    public static long getPendingRequests(int userId) throws SQLException {
+        return DatabaseConnection.queryInt(
+            "SELECT COUNT(*) FROM book_requests WHERE user_id = ? AND status = 'PENDING'",
+            stmt -> stmt.setInt(1, userId));
+    }
+
+    // Deltas, applied after the change has committed. Each also bumps the matching
+    // DataVersions domain so open screens showing that data reload on their next show.
+
+    public static void loanOpened() {
+        DataVersions.bump(DataVersions.Domain.LOANS);
+        totalLoans.increment();
+        activeLoans.increment();
+    }
+
+    public static void loanClosed(boolean wasOverdue) {
+        DataVersions.bump(DataVersions.Domain.LOANS);
+        activeLoans.decrement();
+        if (wasOverdue) {
+            overdueLoans.decrement();
+        }
+    }
+
+    public static void userAdded(boolean active) {
+        DataVersions.bump(DataVersions.Domain.USERS);
+        (active ? activeUsers : pendingApprovals).increment();
+    }
+
+    public static void userActivated() {
+        DataVersions.bump(DataVersions.Domain.USERS);
+        activeUsers.increment();
+        pendingApprovals.decrement();
+    }
+
+    public static void userDeactivated() {
+        DataVersions.bump(DataVersions.Domain.USERS);
+        activeUsers.decrement();
+        pendingApprovals.increment();
+    }
+
+    public static void bookAdded() {
+        activeBooks.increment();
+    }
+
+    public static void bookRemoved() {
+        activeBooks.decrement();
+    }
+
+    // Recounts everything now
+    public static void reconcile() throws SQLException {
+        long[] counts = DatabaseConnection.queryFirst(
+            "SELECT " +
+            "(SELECT COUNT(*) FROM users WHERE is_active = true), " +
+            "(SELECT COUNT(*) FROM users WHERE is_active = false), " +
+            "(SELECT COUNT(*) FROM books WHERE is_active = true), " +
+            "(SELECT COUNT(*) FROM book_borrowings), " +
+            "(SELECT COUNT(*) FROM book_borrowings WHERE status = 'BORROWED'), " +
+            "(SELECT COUNT(*) FROM book_borrowings WHERE status = 'BORROWED' AND due_date < CURRENT_TIMESTAMP)",
+            null,
+            rs -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)});
+        set(activeUsers, counts[0]);
+        set(pendingApprovals, counts[1]);
+        set(activeBooks, counts[2]);
+        set(totalLoans, counts[3]);
+        set(activeLoans, counts[4]);
+        set(overdueLoans, counts[5]);
+    }
+
+    // Recounts shortly on the background thread, for changes made by other clients. Requests
+    // arriving while one is queued are folded into it, so a busy change feed costs one recount.
+    public static void requestReconcile() {
+        if (!loaded || !reconcileQueued.compareAndSet(false, true)) {
+            return;
+        }
+        reconciler.schedule(() -> {
+            reconcileQueued.set(false);
+            reconcileQuietly();
+        }, REMOTE_RECONCILE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void set(LongAdder adder, long value) {
+        // A delta landing between the count and this reset is lost until the next reconcile
+        adder.reset();
+        adder.add(value);
+    }
+
+    private static void ensureLoaded() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        synchronized (LibraryStats.class) {
+            if (loaded) {
+                return;
+            }
+            reconcile();
+            loaded = true;
+            reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "library-stats");
+                t.setDaemon(true);
+                return t;
+            });
+            reconciler.scheduleWithFixedDelay(LibraryStats::reconcileQuietly,
+                RECONCILE_SECONDS, RECONCILE_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Statistics reconcile failed: " + e.getMessage());
+        }
+    }
+}
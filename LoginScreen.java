@@ -184,18 +184,10 @@ public class LoginScreen extends JFrame {
         }
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT * FROM users WHERE username = ? AND password = ? AND role = ? AND is_active = true";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setString(1, username);
-            pstmt.setString(2, password);
-            pstmt.setString(3, role.toUpperCase());
-
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                int userId = rs.getInt("user_id");
+            Session session = UserRepository.login(username, password, role);
+            if (session != null) {
                 showSuccess("Login successful!");
-                openDashboard(userId, role);
+                openDashboard(session);
             } else {
                 showError("Invalid credentials or account not activated!");
             }
@@ -210,17 +202,17 @@ public class LoginScreen extends JFrame {
         new SignUpScreen().setVisible(true);
     }
 
-    private void openDashboard(int userId, String role) {
+    private void openDashboard(Session session) {
         this.dispose();
-        switch (role.toUpperCase()) {
+        switch (session.getRole().toUpperCase()) {
             case "ADMIN":
-                new AdminDashboard(userId).setVisible(true);
+                new AdminDashboard(session).setVisible(true);
                 break;
             case "LIBRARIAN":
-                new LibrarianDashboard(userId).setVisible(true);
+                new LibrarianDashboard(session).setVisible(true);
                 break;
             case "STUDENT":
-                new StudentDashboard(userId).setVisible(true);
+                new StudentDashboard(session).setVisible(true);
                 break;
         }
     }
@@ -239,6 +231,11 @@ public class LoginScreen extends JFrame {
         } catch (Exception e) {
             e.printStackTrace();
         }
+
+        DatabaseConnection.initializeDatabase();
+        UserIdentifiers.warmInBackground();
+        ChangeFeed.start();
+        CatalogSnapshot.openInBackground();
         
         SwingUtilities.invokeLater(() -> {
             new LoginScreen().setVisible(true);
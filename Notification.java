@@ -0,0 +1,27 @@
+import java.sql.Timestamp;
+
+public class Notification {
+    private int id;
+    private int userId;
+    private String message;
+    private String type;
+    private Timestamp createdAt;
+    private boolean isRead;
+
+    public Notification(int id, int userId, String message, String type, Timestamp createdAt, boolean isRead) {
+        this.id = id;
+        this.userId = userId;
+        this.message = message;
+        this.type = type;
+        this.createdAt = createdAt;
+        this.isRead = isRead;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public int getUserId() { return userId; }
+    public String getMessage() { return message; }
+    public String getType() { return type; }
+    public Timestamp getCreatedAt() { return createdAt; }
+    public boolean isRead() { return isRead; }
+}
@@ -1,13 +1,12 @@
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 
-public class NotificationPanel extends JPanel {
+public class NotificationPanel extends JPanel implements PanelRegistry.Refreshable {
     private int userId;
     private boolean isDarkMode;
     private Color darkBackground = new Color(33, 33, 33);
@@ -15,9 +14,11 @@ public class NotificationPanel extends JPanel {
     private DefaultTableModel tableModel;
     private JTable notificationsTable;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    // Notifications in table row order, so a selected row maps back to its id
+    private final List<Notification> notifications = new ArrayList<>();
 
-    public NotificationPanel(int userId, boolean isDarkMode) {
-        this.userId = userId;
+    public NotificationPanel(Session session, boolean isDarkMode) {
+        this.userId = session.getUserId();
         this.isDarkMode = isDarkMode;
         
         setLayout(new BorderLayout(10, 10));
@@ -84,26 +85,23 @@ public class NotificationPanel extends JPanel {
         add(buttonPanel, BorderLayout.SOUTH);
     }
 
+    @Override
+    public void refresh() {
+        loadNotifications();
+    }
+
     private void loadNotifications() {
         tableModel.setRowCount(0);
+        notifications.clear();
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT created_at, message, is_read " +
-                "FROM notifications " +
-                "WHERE user_id = ? " +
-                "ORDER BY created_at DESC"
-            );
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
+            for (Notification notification : NotificationRepository.findByUser(userId)) {
                 Object[] row = {
-                    dateFormat.format(rs.getTimestamp("created_at")),
-                    rs.getString("message"),
-                    rs.getBoolean("is_read") ? "READ" : "UNREAD"
+                    dateFormat.format(notification.getCreatedAt()),
+                    notification.getMessage(),
+                    notification.isRead() ? "READ" : "UNREAD"
                 };
                 tableModel.addRow(row);
+                notifications.add(notification);
             }
 
             // Update unread count
@@ -129,17 +127,7 @@ public class NotificationPanel extends JPanel {
         }
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "UPDATE notifications SET is_read = true " +
-                "WHERE user_id = ? AND created_at = ? AND message = ?"
-            );
-            stmt.setInt(1, userId);
-            stmt.setTimestamp(2, java.sql.Timestamp.valueOf(tableModel.getValueAt(selectedRow, 0).toString()));
-            stmt.setString(3, tableModel.getValueAt(selectedRow, 1).toString());
-            
-            int updated = stmt.executeUpdate();
-            if (updated > 0) {
+            if (NotificationRepository.markRead(notifications.get(selectedRow).getId(), userId)) {
                 tableModel.setValueAt("READ", selectedRow, 2);
                 updateUnreadCount();
             }
@@ -170,18 +158,9 @@ public class NotificationPanel extends JPanel {
 
         if (confirm == JOptionPane.YES_OPTION) {
             try {
-                Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(
-                    "DELETE FROM notifications " +
-                    "WHERE user_id = ? AND created_at = ? AND message = ?"
-                );
-                stmt.setInt(1, userId);
-                stmt.setTimestamp(2, java.sql.Timestamp.valueOf(tableModel.getValueAt(selectedRow, 0).toString()));
-                stmt.setString(3, tableModel.getValueAt(selectedRow, 1).toString());
-                
-                int deleted = stmt.executeUpdate();
-                if (deleted > 0) {
+                if (NotificationRepository.delete(notifications.get(selectedRow).getId(), userId)) {
                     tableModel.removeRow(selectedRow);
+                    notifications.remove(selectedRow);
                     updateUnreadCount();
                 }
 
@@ -197,21 +176,11 @@ public class NotificationPanel extends JPanel {
 
     private void updateUnreadCount() {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT COUNT(*) FROM notifications " +
-                "WHERE user_id = ? AND is_read = false"
-            );
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                int unreadCount = rs.getInt(1);
-                if (unreadCount > 0) {
-                    ((JLabel)getComponent(0)).setText("Notifications (" + unreadCount + " unread)");
-                } else {
-                    ((JLabel)getComponent(0)).setText("Notifications");
-                }
+            int unreadCount = NotificationRepository.countUnread(userId);
+            if (unreadCount > 0) {
+                ((JLabel)getComponent(0)).setText("Notifications (" + unreadCount + " unread)");
+            } else {
+                ((JLabel)getComponent(0)).setText("Notifications");
             }
 
         } catch (SQLException ex) {
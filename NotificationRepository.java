@@ -0,0 +1,61 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// All notification queries in one place, mapped by position in COLUMNS order
+public class NotificationRepository {
+    static final String COLUMNS = "notification_id, user_id, message, type, created_at, is_read";
+
+    static Notification map(ResultSet rs) throws SQLException {
+        return new Notification(
+            rs.getInt(1),
+            rs.getInt(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getTimestamp(5),
+            rs.getBoolean(6)
+        );
+    }
+
+    // Newest first
+    public static List<Notification> findByUser(int userId) throws SQLException {
+        return DatabaseConnection.queryList(
+            "SELECT " + COLUMNS + " FROM notifications WHERE user_id = ? ORDER BY created_at DESC",
+            stmt -> stmt.setInt(1, userId),
+            NotificationRepository::map);
+    }
+
+    // Primary key read of the trigger-maintained counter, however long the history is
+    public static int countUnread(int userId) throws SQLException {
+        return DatabaseConnection.queryInt(
+            "SELECT unread_count FROM user_notification_stats WHERE user_id = ?",
+            stmt -> stmt.setInt(1, userId));
+    }
+
+    // The owner check keeps one user from touching another user's notifications
+    public static boolean markRead(int notificationId, int userId) throws SQLException {
+        boolean changed = DatabaseConnection.update(
+            "UPDATE notifications SET is_read = true WHERE notification_id = ? AND user_id = ?",
+            stmt -> {
+                stmt.setInt(1, notificationId);
+                stmt.setInt(2, userId);
+            }) > 0;
+        if (changed) {
+            DataVersions.bump(DataVersions.Domain.NOTIFICATIONS);
+        }
+        return changed;
+    }
+
+    public static boolean delete(int notificationId, int userId) throws SQLException {
+        boolean changed = DatabaseConnection.update(
+            "DELETE FROM notifications WHERE notification_id = ? AND user_id = ?",
+            stmt -> {
+                stmt.setInt(1, notificationId);
+                stmt.setInt(2, userId);
+            }) > 0;
+        if (changed) {
+            DataVersions.bump(DataVersions.Domain.NOTIFICATIONS);
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,119 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Dashboard content area that keeps each screen alive in a CardLayout instead of rebuilding it
+// on every menu click. A screen is built the first time it is shown. When it is shown again,
+// it is refreshed only if one of the data domains it depends on has changed since: screens
+// implementing Refreshable reload in place, any other screen is rebuilt. Screens showing data that
+// other desks write without this client hearing of it are registered to refresh on every show.
+public class PanelRegistry extends JPanel {
+    public interface Refreshable {
+        void refresh();
+    }
+
+    private static final String ERROR_CARD = "__error";
+
+    private final CardLayout cards = new CardLayout();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private String current;
+
+    public PanelRegistry() {
+        setLayout(cards);
+    }
+
+    public void register(String name, Supplier<? extends JComponent> factory, DataVersions.Domain... dependsOn) {
+        entries.put(name, new Entry(factory, dependsOn, false));
+    }
+
+    public void registerAlwaysRefreshed(String name, Supplier<? extends JComponent> factory) {
+        entries.put(name, new Entry(factory, new DataVersions.Domain[0], true));
+    }
+
+    public void show(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("No panel registered as " + name);
+        }
+
+        long stamp = DataVersions.stamp(entry.dependsOn);
+        try {
+            if (entry.component == null) {
+                build(name, entry, stamp);
+            } else if (stamp != entry.stamp || entry.alwaysRefresh) {
+                if (entry.component instanceof Refreshable) {
+                    ((Refreshable) entry.component).refresh();
+                    entry.stamp = stamp;
+                } else {
+                    remove(entry.component);
+                    build(name, entry, stamp);
+                }
+            }
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+            showError("Error loading " + name + ": " + ex.getMessage());
+            return;
+        }
+
+        current = name;
+        cards.show(this, name);
+        revalidate();
+        repaint();
+    }
+
+    // Drops every built screen, e.g. after a theme change; the visible one is rebuilt right away
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            if (entry.component != null) {
+                remove(entry.component);
+                entry.component = null;
+            }
+        }
+        if (current != null) {
+            show(current);
+        }
+    }
+
+    private void build(String name, Entry entry, long stamp) {
+        entry.component = null;
+        JComponent component = entry.factory.get();
+        add(component, name);
+        entry.component = component;
+        entry.stamp = stamp;
+    }
+
+    private void showError(String message) {
+        for (Component component : getComponents()) {
+            if (ERROR_CARD.equals(component.getName())) {
+                remove(component);
+            }
+        }
+        JPanel errorPanel = new JPanel(new GridBagLayout());
+        errorPanel.setName(ERROR_CARD);
+        JLabel errorLabel = new JLabel(message);
+        errorLabel.setForeground(Color.RED);
+        errorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        errorPanel.add(errorLabel);
+        add(errorPanel, ERROR_CARD);
+        current = null;
+        cards.show(this, ERROR_CARD);
+        revalidate();
+        repaint();
+    }
+
+    private static class Entry {
+        private final Supplier<? extends JComponent> factory;
+        private final DataVersions.Domain[] dependsOn;
+        private final boolean alwaysRefresh;
+        private JComponent component;
+        private long stamp;
+
+        Entry(Supplier<? extends JComponent> factory, DataVersions.Domain[] dependsOn, boolean alwaysRefresh) {
+            this.factory = factory;
+            this.dependsOn = dependsOn;
+            this.alwaysRefresh = alwaysRefresh;
+        }
+    }
+}
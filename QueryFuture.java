@@ -0,0 +1,45 @@
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+
+// Result of an asynchronous query. Cancelling it aborts the statement on the server.
+public class QueryFuture<T> extends CompletableFuture<T> {
+    private volatile Statement statement;
+    private volatile long attachedAt;
+
+    void attach(Statement statement) throws SQLException {
+        attachedAt = System.currentTimeMillis();
+        this.statement = statement;
+        if (isCancelled()) {
+            statement.cancel();
+        }
+    }
+
+    void detach() {
+        statement = null;
+    }
+
+    // Cancels only a statement that has been executing on the server for at least thresholdMs.
+    // Killing a query costs Connector/J an extra connection, which a short query is not worth.
+    public boolean cancelIfRunningLongerThan(long thresholdMs) {
+        Statement running = statement;
+        if (running == null || System.currentTimeMillis() - attachedAt < thresholdMs) {
+            return false;
+        }
+        return cancel(true);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Statement running = statement;
+        if (cancelled && running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                // The statement may already have finished
+            }
+        }
+        return cancelled;
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Per-statement-shape latency, row and error counters. Statements are grouped by their SQL
+// with literals replaced by '?', so queries built by string concatenation still share a bucket.
+public class QueryMetrics {
+    private static final int MAX_SHAPES = 2000;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, String> shapes = new ConcurrentHashMap<>();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public static class Stats {
+        private final String shape;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        Stats(String shape) {
+            this.shape = shape;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        void addRows(long count) {
+            rows.add(count);
+        }
+    }
+
+    public Stats statsFor(String sql) {
+        String shape = shapeOf(sql);
+        Stats existing = stats.get(shape);
+        if (existing != null) {
+            return existing;
+        }
+        return stats.computeIfAbsent(shape, Stats::new);
+    }
+
+    public void recordExecution(Stats target, long nanos, long rows, boolean failed) {
+        target.latency.record(nanos);
+        if (rows > 0) {
+            target.rows.add(rows);
+        }
+        if (failed) {
+            target.errors.increment();
+        }
+    }
+
+    // Statements ordered by total time spent executing them, most expensive first
+    public List<Stats> topByTotalTime(int limit) {
+        List<Stats> all = new ArrayList<>(stats.values());
+        all.sort(Comparator.comparingLong((Stats s) -> s.latency.getTotalNanos()).reversed());
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    public String dump(int limit) {
+        StringBuilder out = new StringBuilder();
+        for (Stats s : topByTotalTime(limit)) {
+            out.append(String.format("%10.1f ms total  %6d calls  %8d rows  %4d errors  %s  %s%n",
+                s.latency.getTotalNanos() / 1_000_000.0, s.latency.getCount(), s.getRows(), s.getErrors(),
+                s.latency.summary(), s.shape));
+        }
+        return out.toString();
+    }
+
+    String shapeOf(String sql) {
+        String shape = shapes.get(sql);
+        if (shape == null) {
+            shape = normalize(sql);
+            // Ad-hoc SQL with inlined values would otherwise grow the lookup without bound
+            if (shapes.size() < MAX_SHAPES) {
+                shapes.put(sql, shape);
+            }
+        }
+        return shape;
+    }
+
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,89 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+
+public class QueryStatsPanel extends JPanel {
+    private static final int TOP_N = 50;
+
+    private JTable statsTable;
+    private DefaultTableModel statsModel;
+    private JTextArea poolArea;
+
+    public QueryStatsPanel() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        initializeComponents();
+        loadStats();
+    }
+
+    private void initializeComponents() {
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton refreshButton = new JButton("Refresh");
+        JButton resetButton = new JButton("Reset");
+        JButton copyButton = new JButton("Copy to Clipboard");
+        refreshButton.addActionListener(e -> loadStats());
+        resetButton.addActionListener(e -> {
+            DatabaseConnection.getQueryMetrics().reset();
+            loadStats();
+        });
+        copyButton.addActionListener(e -> copyToClipboard());
+        controlPanel.add(new JLabel("Top " + TOP_N + " statements by total time"));
+        controlPanel.add(refreshButton);
+        controlPanel.add(resetButton);
+        controlPanel.add(copyButton);
+        add(controlPanel, BorderLayout.NORTH);
+
+        String[] columns = {"Total (ms)", "Calls", "Mean (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)", "Rows", "Errors", "SQL"};
+        statsModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        statsTable = new JTable(statsModel);
+        statsTable.setAutoCreateRowSorter(true);
+        statsTable.getColumnModel().getColumn(8).setPreferredWidth(600);
+        add(new JScrollPane(statsTable), BorderLayout.CENTER);
+
+        poolArea = new JTextArea(4, 80);
+        poolArea.setEditable(false);
+        poolArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        add(new JScrollPane(poolArea), BorderLayout.SOUTH);
+    }
+
+    private void loadStats() {
+        statsModel.setRowCount(0);
+        for (QueryMetrics.Stats stats : DatabaseConnection.getQueryMetrics().topByTotalTime(TOP_N)) {
+            LatencyHistogram latency = stats.getLatency();
+            Object[] row = {
+                round(latency.getTotalNanos() / 1_000_000.0),
+                latency.getCount(),
+                round(latency.getMeanMillis()),
+                round(latency.getPercentileMillis(95)),
+                round(latency.getPercentileMillis(99)),
+                round(latency.getMaxNanos() / 1_000_000.0),
+                stats.getRows(),
+                stats.getErrors(),
+                stats.getShape()
+            };
+            statsModel.addRow(row);
+        }
+        SlowQueryLog slowLog = DatabaseConnection.getSlowQueryLog();
+        poolArea.setText("Pool: " + DatabaseConnection.getPool().describe() +
+            "\nBatches: " + DatabaseConnection.getBatchWriter().describe() +
+            "\nTransactions: " + DatabaseConnection.getTransactions().describe() +
+            "\nChange feed: " + ChangeFeed.describe() +
+            "\nSlow queries: " + (slowLog == null ? "disabled" : "logged=" + slowLog.getLoggedCount() +
+                ", dropped=" + slowLog.getDroppedCount() + ", file=" + slowLog.getFile().getAbsolutePath()));
+    }
+
+    private void copyToClipboard() {
+        String dump = DatabaseConnection.getQueryMetrics().dump(TOP_N);
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
+            new java.awt.datatransfer.StringSelection(dump), null);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -1,15 +1,16 @@
 import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
-import java.sql.*;
+import java.sql.SQLException;
 
 public class ReissueBooksPanel extends JPanel {
     private JTable borrowedBooksTable;
     private DefaultTableModel tableModel;
-    private int userId;
+    private StudentLoanState loanState;
+    private JButton reissueButton;
 
-    public ReissueBooksPanel(int userId) {
-        this.userId = userId;
+    public ReissueBooksPanel(StudentLoanState loanState) {
+        this.loanState = loanState;
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         initializeComponents();
@@ -32,7 +33,7 @@ public class ReissueBooksPanel extends JPanel {
 
         // Create buttons panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JButton reissueButton = createStyledButton("Reissue Book");
+        reissueButton = createStyledButton("Reissue Book");
         JButton refreshButton = createStyledButton("Refresh");
         buttonPanel.add(reissueButton);
         buttonPanel.add(refreshButton);
@@ -44,6 +45,22 @@ public class ReissueBooksPanel extends JPanel {
         // Add listeners
         reissueButton.addActionListener(e -> reissueBook());
         refreshButton.addActionListener(e -> loadBorrowedBooks());
+        borrowedBooksTable.getSelectionModel().addListSelectionListener(e -> updateReissueHint());
+    }
+
+    // Only a hint from the loans in memory; the UPDATE in reissueBook enforces the rule
+    private void updateReissueHint() {
+        int selectedRow = borrowedBooksTable.getSelectedRow();
+        if (selectedRow == -1) {
+            reissueButton.setEnabled(true);
+            return;
+        }
+        try {
+            reissueButton.setEnabled(loanState.canReissue((int) tableModel.getValueAt(selectedRow, 0)));
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            reissueButton.setEnabled(true);
+        }
     }
 
     private JButton createStyledButton(String text) {
@@ -60,24 +77,13 @@ public class ReissueBooksPanel extends JPanel {
     private void loadBorrowedBooks() {
         tableModel.setRowCount(0);
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT bb.borrowing_id, b.title, bb.borrow_date, bb.due_date, bb.status " +
-                "FROM book_borrowings bb " +
-                "JOIN books b ON bb.book_id = b.book_id " +
-                "WHERE bb.user_id = ? AND bb.status = 'BORROWED' " +
-                "ORDER BY bb.due_date"
-            );
-            stmt.setInt(1, userId);
-            
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
+            for (Borrowing borrowing : loanState.getActiveLoans()) {
                 Object[] row = {
-                    rs.getInt("borrowing_id"),
-                    rs.getString("title"),
-                    rs.getDate("borrow_date"),
-                    rs.getDate("due_date"),
-                    rs.getString("status")
+                    borrowing.getId(),
+                    borrowing.getBookTitle(),
+                    Borrowing.dateOf(borrowing.getBorrowDate()),
+                    Borrowing.dateOf(borrowing.getDueDate()),
+                    borrowing.getStatus()
                 };
                 tableModel.addRow(row);
             }
@@ -98,37 +104,29 @@ public class ReissueBooksPanel extends JPanel {
         String bookTitle = (String) tableModel.getValueAt(selectedRow, 1);
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // Check if book has already been reissued
-            PreparedStatement checkStmt = conn.prepareStatement(
-                "SELECT COUNT(*) FROM book_borrowings " +
-                "WHERE borrowing_id = ? AND due_date > DATE_ADD(borrow_date, INTERVAL 14 DAY)"
-            );
-            checkStmt.setInt(1, borrowingId);
-            ResultSet rs = checkStmt.executeQuery();
-            rs.next();
-            if (rs.getInt(1) > 0) {
-                JOptionPane.showMessageDialog(this, 
-                    "This book has already been reissued once. Cannot reissue again.");
-                return;
-            }
-
-            // Extend due date by 7 days
-            PreparedStatement updateStmt = conn.prepareStatement(
-                "UPDATE book_borrowings SET due_date = DATE_ADD(due_date, INTERVAL 7 DAY) " +
-                "WHERE borrowing_id = ? AND status = 'BORROWED'"
-            );
-            updateStmt.setInt(1, borrowingId);
-            
-            int result = updateStmt.executeUpdate();
+            // Extend due date. The once-only rule is part of the WHERE clause, so a stale
+            // cache or a second click cannot extend the same loan twice.
+            int result = DatabaseConnection.update(
+                "UPDATE book_borrowings SET due_date = DATE_ADD(due_date, INTERVAL ? DAY) " +
+                "WHERE borrowing_id = ? AND status = 'BORROWED' " +
+                "AND due_date <= DATE_ADD(borrow_date, INTERVAL ? DAY)",
+                stmt -> {
+                    stmt.setInt(1, StudentLoanState.REISSUE_DAYS);
+                    stmt.setInt(2, borrowingId);
+                    stmt.setInt(3, BorrowingRepository.LOAN_DAYS);
+                });
             if (result > 0) {
+                loanState.loanReissued(borrowingId, StudentLoanState.REISSUE_DAYS);
                 JOptionPane.showMessageDialog(this, 
                     "Book '" + bookTitle + "' has been reissued successfully.\n" +
-                    "Due date extended by 7 days.");
+                    "Due date extended by " + StudentLoanState.REISSUE_DAYS + " days.");
                 loadBorrowedBooks();
             } else {
-                JOptionPane.showMessageDialog(this, "Failed to reissue book. Please try again.");
+                // Already reissued, or returned meanwhile
+                loanState.invalidate();
+                JOptionPane.showMessageDialog(this, 
+                    "This book has already been reissued once. Cannot reissue again.");
+                loadBorrowedBooks();
             }
         } catch (SQLException ex) {
             ex.printStackTrace();
@@ -11,6 +11,7 @@ public class ReportsPanel extends JPanel {
     private DefaultTableModel booksModel, borrowingsModel, finesModel;
     private JComboBox<String> reportTypeCombo;
     private JButton generateButton, exportButton;
+    private QueryFuture<Long> pendingBorrowings, pendingFines;
 
     public ReportsPanel() {
         setLayout(new BorderLayout());
@@ -87,90 +88,89 @@ public class ReportsPanel extends JPanel {
         }
     }
 
+    // The first read may load the whole catalog, so it runs on the query threads
     private void loadBooksReport() {
-        booksModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT * FROM books WHERE is_active = true";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
+        DatabaseConnection.onEdt(DatabaseConnection.supply(BookCatalog::active), books -> {
+            booksModel.setRowCount(0);
+            for (Book book : books) {
                 Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("isbn"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getInt("quantity"),
-                    rs.getInt("available_quantity")
+                    book.getId(),
+                    book.getIsbn(),
+                    book.getTitle(),
+                    book.getAuthor(),
+                    book.getQuantity(),
+                    book.getAvailableQuantity()
                 };
                 booksModel.addRow(row);
             }
-        } catch (SQLException e) {
+        }, e -> {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error loading books report: " + e.getMessage());
-        }
+        });
     }
 
     private void loadBorrowingsReport() {
+        if (pendingBorrowings != null) {
+            pendingBorrowings.cancel(true);
+        }
         borrowingsModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT bb.borrow_id, b.title, u.full_name, " +
-                          "bb.borrow_date, bb.due_date, bb.status " +
-                          "FROM book_borrowings bb " +
-                          "JOIN books b ON bb.book_id = b.book_id " +
-                          "JOIN users u ON bb.user_id = u.user_id " +
-                          "ORDER BY bb.borrow_date DESC";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("borrow_id"),
-                    rs.getString("title"),
-                    rs.getString("full_name"),
-                    rs.getDate("borrow_date"),
-                    rs.getDate("due_date"),
-                    rs.getString("status")
-                };
-                borrowingsModel.addRow(row);
+        String query = "SELECT bb.borrowing_id, b.title, u.full_name, " +
+                      "bb.borrow_date, bb.due_date, bb.status " +
+                      "FROM book_borrowings bb " +
+                      "JOIN books b ON bb.book_id = b.book_id " +
+                      "JOIN users u ON bb.user_id = u.user_id " +
+                      "ORDER BY bb.borrow_date DESC";
+
+        // Rows arrive in chunks so the table fills while the rest of the history is still streaming
+        pendingBorrowings = DatabaseConnection.stream(query, null, rs -> new Object[]{
+                rs.getInt("borrowing_id"),
+                rs.getString("title"),
+                rs.getString("full_name"),
+                rs.getDate("borrow_date"),
+                rs.getDate("due_date"),
+                rs.getString("status")
+            },
+            rows -> rows.forEach(borrowingsModel::addRow));
+        DatabaseConnection.onEdt(
+            pendingBorrowings,
+            total -> { },
+            e -> {
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error loading borrowings report: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading borrowings report: " + e.getMessage());
-        }
+        );
     }
 
     private void loadFinesReport() {
+        if (pendingFines != null) {
+            pendingFines.cancel(true);
+        }
         finesModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT f.fine_id, u.full_name, b.title, " +
-                          "f.amount, f.status, f.created_at " +
-                          "FROM fines f " +
-                          "JOIN book_borrowings bb ON f.borrow_id = bb.borrow_id " +
-                          "JOIN users u ON bb.user_id = u.user_id " +
-                          "JOIN books b ON bb.book_id = b.book_id " +
-                          "ORDER BY f.created_at DESC";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("fine_id"),
-                    rs.getString("full_name"),
-                    rs.getString("title"),
-                    String.format("$%.2f", rs.getDouble("amount")),
-                    rs.getString("status"),
-                    rs.getTimestamp("created_at")
-                };
-                finesModel.addRow(row);
+        String query = "SELECT f.fine_id, u.full_name, b.title, " +
+                      "f.amount, f.status, f.created_at " +
+                      "FROM fines f " +
+                      "JOIN book_borrowings bb ON f.borrow_id = bb.borrowing_id " +
+                      "JOIN users u ON bb.user_id = u.user_id " +
+                      "JOIN books b ON bb.book_id = b.book_id " +
+                      "ORDER BY f.created_at DESC";
+
+        pendingFines = DatabaseConnection.stream(query, null, rs -> new Object[]{
+                rs.getInt("fine_id"),
+                rs.getString("full_name"),
+                rs.getString("title"),
+                String.format("$%.2f", rs.getDouble("amount")),
+                rs.getString("status"),
+                rs.getTimestamp("created_at")
+            },
+            rows -> rows.forEach(finesModel::addRow));
+        DatabaseConnection.onEdt(
+            pendingFines,
+            total -> { },
+            e -> {
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error loading fines report: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading fines report: " + e.getMessage());
-        }
+        );
     }
 
     private void exportToExcel() {
@@ -2,15 +2,23 @@ import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.sql.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class RequestBooksPanel extends JPanel implements PanelRegistry.Refreshable {
+    private static final int ALREADY_BORROWED = -1;
 
-public class RequestBooksPanel extends JPanel {
     private JTable booksTable;
     private DefaultTableModel tableModel;
     private int userId;
+    private StudentLoanState loanState;
+    private JLabel borrowedHint;
+    private CompletableFuture<List<Book>> pending;
     private JTextField searchField;
 
-    public RequestBooksPanel(int userId) {
-        this.userId = userId;
+    public RequestBooksPanel(StudentLoanState loanState) {
+        this.loanState = loanState;
+        this.userId = loanState.getUserId();
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         initializeComponents();
@@ -45,6 +53,10 @@ public class RequestBooksPanel extends JPanel {
         JButton refreshButton = createStyledButton("Refresh");
         buttonPanel.add(requestButton);
         buttonPanel.add(refreshButton);
+        borrowedHint = new JLabel("You already have this book borrowed");
+        borrowedHint.setForeground(Color.RED);
+        borrowedHint.setVisible(false);
+        buttonPanel.add(borrowedHint);
 
         // Add components
         add(searchPanel, BorderLayout.NORTH);
@@ -55,6 +67,7 @@ public class RequestBooksPanel extends JPanel {
         searchButton.addActionListener(e -> searchBooks());
         requestButton.addActionListener(e -> requestBook());
         refreshButton.addActionListener(e -> loadAvailableBooks());
+        booksTable.getSelectionModel().addListSelectionListener(e -> updateBorrowedHint());
     }
 
     private JButton createStyledButton(String text) {
@@ -68,67 +81,96 @@ public class RequestBooksPanel extends JPanel {
         return button;
     }
 
+    @Override
+    public void refresh() {
+        loadAvailableBooks();
+    }
+
     private void loadAvailableBooks() {
-        tableModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT book_id, title, author, category, " +
-                "CASE WHEN available_quantity > 0 THEN 'Available' ELSE 'Not Available' END as status " +
-                "FROM books " +
-                "WHERE is_active = true"
-            );
-            
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("category"),
-                    rs.getString("status")
-                };
-                tableModel.addRow(row);
+        showBooks(DatabaseConnection.supply(BookCatalog::active), "Error loading books: ", null);
+    }
+
+    private void searchBooks() {
+        String searchTerm = searchField.getText().trim();
+        showBooks(DatabaseConnection.supply(() -> BookCatalog.search(searchTerm, false)),
+            "Error searching books: ", () -> {
+                if (tableModel.getRowCount() == 0 && !searchTerm.isEmpty()) {
+                    offerSuggestion(searchTerm);
+                }
+            });
+    }
+
+    // The first read may load the whole catalog, so it runs on the query threads. The result of an
+    // older read still running is dropped.
+    private void showBooks(CompletableFuture<List<Book>> load, String errorMessage, Runnable onShown) {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = load;
+        DatabaseConnection.onEdt(load, books -> {
+            if (load != pending) {
+                return;
+            }
+            pending = null;
+            tableModel.setRowCount(0);
+            for (Book book : books) {
+                tableModel.addRow(toRow(book));
+            }
+            if (onShown != null) {
+                onShown.run();
+            }
+        }, ex -> {
+            if (load != pending) {
+                return;
             }
+            pending = null;
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, errorMessage + ex.getMessage());
+        });
+    }
+
+    // A misspelled title or author finds nothing; offer the closest spelling that finds something
+    private void offerSuggestion(String searchTerm) {
+        String suggestion;
+        try {
+            // The catalog is loaded by now, so this is answered from memory
+            suggestion = BookCatalog.suggest(searchTerm, false);
         } catch (SQLException ex) {
             ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading books: " + ex.getMessage());
+            return;
+        }
+        if (suggestion == null) {
+            return;
+        }
+        int choice = JOptionPane.showConfirmDialog(this,
+            "No books match \"" + searchTerm + "\". Did you mean \"" + suggestion + "\"?",
+            "Search Books",
+            JOptionPane.YES_NO_OPTION);
+        if (choice == JOptionPane.YES_OPTION) {
+            searchField.setText(suggestion);
+            searchBooks();
         }
     }
 
-    private void searchBooks() {
-        String searchTerm = searchField.getText().trim();
-        tableModel.setRowCount(0);
-        
+    private Object[] toRow(Book book) {
+        return new Object[]{
+            book.getId(),
+            book.getTitle(),
+            book.getAuthor(),
+            book.getCategory(),
+            book.getAvailableQuantity() > 0 ? "Available" : "Not Available"
+        };
+    }
+
+    // Only a hint from the loans in memory; requestBook checks the database itself
+    private void updateBorrowedHint() {
+        int selectedRow = booksTable.getSelectedRow();
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT book_id, title, author, category, " +
-                "CASE WHEN available_quantity > 0 THEN 'Available' ELSE 'Not Available' END as status " +
-                "FROM books " +
-                "WHERE is_active = true AND " +
-                "(title LIKE ? OR author LIKE ? OR category LIKE ?)"
-            );
-            
-            String searchPattern = "%" + searchTerm + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            stmt.setString(3, searchPattern);
-            
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("category"),
-                    rs.getString("status")
-                };
-                tableModel.addRow(row);
-            }
+            borrowedHint.setVisible(selectedRow != -1
+                && loanState.hasBorrowed((int) tableModel.getValueAt(selectedRow, 0)));
         } catch (SQLException ex) {
             ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error searching books: " + ex.getMessage());
+            borrowedHint.setVisible(false);
         }
     }
 
@@ -142,59 +184,73 @@ public class RequestBooksPanel extends JPanel {
         int bookId = (int) tableModel.getValueAt(selectedRow, 0);
         String bookTitle = (String) tableModel.getValueAt(selectedRow, 1);
 
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // Check if user already has a pending request for this book
-            PreparedStatement checkRequestStmt = conn.prepareStatement(
-                "SELECT COUNT(*) FROM book_borrowings WHERE user_id = ? AND book_id = ? AND status = 'BORROWED'"
-            );
-            checkRequestStmt.setInt(1, userId);
-            checkRequestStmt.setInt(2, bookId);
-            ResultSet requestRs = checkRequestStmt.executeQuery();
-            requestRs.next();
-            if (requestRs.getInt(1) > 0) {
+        CompletableFuture<Integer> borrowing = DatabaseConnection.supply(() -> {
+            Integer id = DatabaseConnection.inTransaction(conn -> {
+                // Checked here rather than from the loans in memory, which may be minutes old
+                PreparedStatement borrowedStmt = conn.prepareStatement(
+                    "SELECT 1 FROM book_borrowings WHERE user_id = ? AND book_id = ? " +
+                    "AND status = 'BORROWED' LIMIT 1"
+                );
+                borrowedStmt.setInt(1, userId);
+                borrowedStmt.setInt(2, bookId);
+                try (ResultSet borrowed = borrowedStmt.executeQuery()) {
+                    if (borrowed.next()) {
+                        return ALREADY_BORROWED;
+                    }
+                }
+
+                // Update book available quantity
+                PreparedStatement updateBookStmt = conn.prepareStatement(
+                    "UPDATE books SET available_quantity = available_quantity - 1 " +
+                    "WHERE book_id = ? AND available_quantity > 0"
+                );
+                updateBookStmt.setInt(1, bookId);
+                if (updateBookStmt.executeUpdate() == 0) {
+                    return null;
+                }
+
+                // Create borrowing record
+                PreparedStatement borrowStmt = conn.prepareStatement(
+                    "INSERT INTO book_borrowings (book_id, user_id, borrow_date, due_date, status) " +
+                    "VALUES (?, ?, CURRENT_DATE, DATE_ADD(CURRENT_DATE, INTERVAL 14 DAY), 'BORROWED')",
+                    Statement.RETURN_GENERATED_KEYS
+                );
+                borrowStmt.setInt(1, bookId);
+                borrowStmt.setInt(2, userId);
+                borrowStmt.executeUpdate();
+                try (ResultSet keys = borrowStmt.getGeneratedKeys()) {
+                    keys.next();
+                    return keys.getInt(1);
+                }
+            });
+            if (id == null || id > 0) {
+                // Take the stored count, whether it was stale or just changed. The change feed
+                // re-reads the same row later, which leaves it as is.
+                BookCatalog.refresh(bookId);
+            }
+            return id;
+        });
+
+        DatabaseConnection.onEdt(borrowing, borrowingId -> {
+            if (borrowingId != null && borrowingId == ALREADY_BORROWED) {
+                loanState.invalidate();
+                updateBorrowedHint();
                 JOptionPane.showMessageDialog(this, "You already have this book borrowed");
                 return;
             }
-
-            // Insert borrowing request
-            PreparedStatement insertStmt = conn.prepareStatement(
-                "INSERT INTO book_borrowings (book_id, user_id, borrow_date, due_date, status) " +
-                "VALUES (?, ?, CURRENT_DATE, DATE_ADD(CURRENT_DATE, INTERVAL 14 DAY), 'BORROWED')"
-            );
-            insertStmt.setInt(1, bookId);
-            insertStmt.setInt(2, userId);
-            
-            // Update book available quantity
-            PreparedStatement updateBookStmt = conn.prepareStatement(
-                "UPDATE books SET available_quantity = available_quantity - 1 " +
-                "WHERE book_id = ? AND available_quantity > 0"
-            );
-            updateBookStmt.setInt(1, bookId);
-
-            conn.setAutoCommit(false);
-            try {
-                int updateResult = updateBookStmt.executeUpdate();
-                if (updateResult > 0) {
-                    insertStmt.executeUpdate();
-                    conn.commit();
-                    JOptionPane.showMessageDialog(this, 
-                        "Book borrowed successfully.\nDue date is in 14 days.");
-                    loadAvailableBooks(); // Refresh the table
-                } else {
-                    conn.rollback();
-                    JOptionPane.showMessageDialog(this, "Book is not available for borrowing.");
-                }
-            } catch (SQLException ex) {
-                conn.rollback();
-                throw ex;
-            } finally {
-                conn.setAutoCommit(true);
+            if (borrowingId == null) {
+                JOptionPane.showMessageDialog(this, "Book is not available for borrowing.");
+                loadAvailableBooks();
+                return;
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error requesting book: " + ex.getMessage());
-        }
+            LibraryStats.loanOpened();
+            loanState.loanOpened(borrowingId, bookId, bookTitle);
+            JOptionPane.showMessageDialog(this,
+                "Book borrowed successfully.\nDue date is in 14 days.");
+            loadAvailableBooks(); // Refresh the table
+        }, error -> {
+            error.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error requesting book: " + error.getMessage());
+        });
     }
 }
\ No newline at end of file
@@ -3,17 +3,20 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 
-public class ReturnBooksPanel extends JPanel {
+public class ReturnBooksPanel extends JPanel implements PanelRegistry.Refreshable {
     private int userId;
+    private StudentLoanState loanState;
     private boolean isDarkMode;
+    private DefaultTableModel model;
     private Color darkBackground = new Color(33, 33, 33);
     private Color lightBackground = new Color(242, 242, 242);
 
-    public ReturnBooksPanel(int userId, boolean isDarkMode) {
-        this.userId = userId;
+    public ReturnBooksPanel(StudentLoanState loanState, boolean isDarkMode) {
+        this.loanState = loanState;
+        this.userId = loanState.getUserId();
         this.isDarkMode = isDarkMode;
         
         setLayout(new BorderLayout(10, 10));
@@ -28,7 +31,7 @@ public class ReturnBooksPanel extends JPanel {
 
         // Create table
         String[] columns = {"Book ID", "Title", "Borrow Date", "Due Date"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+        model = new DefaultTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
@@ -75,24 +78,20 @@ public class ReturnBooksPanel extends JPanel {
         add(buttonPanel, BorderLayout.SOUTH);
     }
 
+    @Override
+    public void refresh() {
+        model.setRowCount(0);
+        loadBorrowedBooks(model);
+    }
+
     private void loadBorrowedBooks(DefaultTableModel model) {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT b.book_id, b.title, bb.borrow_date, bb.due_date " +
-                "FROM book_borrowings bb " +
-                "JOIN books b ON bb.book_id = b.book_id " +
-                "WHERE bb.user_id = ? AND bb.status = 'BORROWED'"
-            );
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
+            for (Borrowing borrowing : loanState.getActiveLoans()) {
                 Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getDate("borrow_date"),
-                    rs.getDate("due_date")
+                    borrowing.getBookId(),
+                    borrowing.getBookTitle(),
+                    Borrowing.dateOf(borrowing.getBorrowDate()),
+                    Borrowing.dateOf(borrowing.getDueDate())
                 };
                 model.addRow(row);
             }
@@ -106,11 +105,10 @@ public class ReturnBooksPanel extends JPanel {
     }
 
     private void returnBook(int bookId, DefaultTableModel model, int row) {
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            try {
+        java.util.Date dueDate = (java.util.Date) model.getValueAt(row, 3);
+        boolean wasOverdue = dueDate != null && dueDate.getTime() < System.currentTimeMillis();
+        CompletableFuture<Boolean> returning = DatabaseConnection.supply(() -> {
+            boolean returned = DatabaseConnection.inTransaction(conn -> {
                 // Update book_borrowings status
                 PreparedStatement updateBorrowingStmt = conn.prepareStatement(
                     "UPDATE book_borrowings SET status = 'RETURNED', return_date = CURRENT_DATE " +
@@ -118,7 +116,9 @@ public class ReturnBooksPanel extends JPanel {
                 );
                 updateBorrowingStmt.setInt(1, bookId);
                 updateBorrowingStmt.setInt(2, userId);
-                updateBorrowingStmt.executeUpdate();
+                if (updateBorrowingStmt.executeUpdate() == 0) {
+                    return false;
+                }
 
                 // Update book available quantity
                 PreparedStatement updateBookStmt = conn.prepareStatement(
@@ -127,27 +127,49 @@ public class ReturnBooksPanel extends JPanel {
                 );
                 updateBookStmt.setInt(1, bookId);
                 updateBookStmt.executeUpdate();
+                return true;
+            });
+            if (returned) {
+                // Take the stored count; the change feed re-reads the same row later
+                BookCatalog.refresh(bookId);
+            }
+            return returned;
+        });
 
-                conn.commit();
-                model.removeRow(row);
-                
+        DatabaseConnection.onEdt(returning, returned -> {
+            // The row may have moved while the return ran
+            int current = rowOf(model, bookId);
+            if (current >= 0) {
+                model.removeRow(current);
+            }
+            if (returned) {
+                LibraryStats.loanClosed(wasOverdue);
+                loanState.loanReturned(bookId);
                 JOptionPane.showMessageDialog(this,
                     "Book returned successfully",
                     "Success",
                     JOptionPane.INFORMATION_MESSAGE);
-                
-            } catch (SQLException ex) {
-                conn.rollback();
-                throw ex;
-            } finally {
-                conn.setAutoCommit(true);
+            } else {
+                JOptionPane.showMessageDialog(this,
+                    "This book has already been returned",
+                    "Information",
+                    JOptionPane.INFORMATION_MESSAGE);
             }
-        } catch (SQLException ex) {
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this,
                 "Error returning book: " + ex.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    private static int rowOf(DefaultTableModel model, int bookId) {
+        for (int row = 0; row < model.getRowCount(); row++) {
+            if ((int) model.getValueAt(row, 0) == bookId) {
+                return row;
+            }
         }
+        return -1;
     }
 }
\ No newline at end of file
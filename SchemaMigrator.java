@@ -0,0 +1,521 @@
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Applies numbered, checksummed schema migrations and records them in schema_version.
+// Several desks may start at once, so the run is serialized with a MySQL named lock.
+// MySQL commits DDL as it goes, so a migration cannot be rolled back; instead every step is
+// written to be safe to run again, and a migration that failed halfway is simply re-run.
+public class SchemaMigrator {
+    private static final String LOCK_NAME = "library_db.schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private final Connection conn;
+
+    public SchemaMigrator(Connection conn) {
+        this.conn = conn;
+    }
+
+    public void migrate() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS schema_version (" +
+                "version INT PRIMARY KEY, " +
+                "description VARCHAR(200) NOT NULL, " +
+                "checksum CHAR(8) NOT NULL, " +
+                "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "execution_ms INT NOT NULL" +
+                ")"
+            );
+        }
+
+        acquireLock();
+        try {
+            Map<Integer, String> applied = loadAppliedVersions();
+            for (Migration migration : migrations()) {
+                String checksum = migration.checksum();
+                String appliedChecksum = applied.get(migration.version);
+                if (appliedChecksum == null) {
+                    apply(migration, checksum);
+                } else if (!appliedChecksum.equals(checksum)) {
+                    throw new SQLException("Schema migration V" + migration.version + " (" + migration.description +
+                        ") was changed after it was applied: checksum " + appliedChecksum + " != " + checksum);
+                }
+            }
+        } finally {
+            releaseLock();
+        }
+    }
+
+    private void apply(Migration migration, String checksum) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.statements) {
+                stmt.executeUpdate(sql);
+            }
+            for (Columns columns : migration.columns) {
+                List<String> missing = new ArrayList<>();
+                for (String definition : columns.definitions) {
+                    if (!columnExists(columns.table, definition.substring(0, definition.indexOf(' ')))) {
+                        missing.add("ADD COLUMN " + definition);
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    stmt.executeUpdate("ALTER TABLE " + columns.table + " " + String.join(", ", missing));
+                }
+            }
+            for (Index index : migration.indexes) {
+                if (!indexExists(index)) {
+                    // In-place, non-locking build so desks keep working while the index is created
+                    stmt.executeUpdate("ALTER TABLE " + index.table + " ADD INDEX " + index.name +
+                        " (" + index.columns + "), ALGORITHM=INPLACE, LOCK=NONE");
+                }
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setString(3, checksum);
+            stmt.setLong(4, elapsed);
+            stmt.executeUpdate();
+        }
+        System.out.println("Applied schema migration V" + migration.version + " - " +
+            migration.description + " (" + elapsed + " ms)");
+    }
+
+    private Map<Integer, String> loadAppliedVersions() throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private boolean columnExists(String table, String column) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT 1 FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ? LIMIT 1")) {
+            stmt.setString(1, table);
+            stmt.setString(2, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private boolean indexExists(Index index) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT 1 FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? LIMIT 1")) {
+            stmt.setString(1, index.table);
+            stmt.setString(2, index.name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void acquireLock() throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another client to finish schema migration");
+                }
+            }
+        }
+    }
+
+    private void releaseLock() {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Append new migrations at the end; never edit one that has shipped
+    private static List<Migration> migrations() {
+        List<Migration> migrations = new ArrayList<>();
+
+        migrations.add(new Migration(1, "Core tables")
+            .sql(
+                "CREATE TABLE IF NOT EXISTS users (" +
+                "user_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "username VARCHAR(50) UNIQUE NOT NULL, " +
+                "password VARCHAR(255) NOT NULL, " +
+                "full_name VARCHAR(100) NOT NULL, " +
+                "email VARCHAR(100) UNIQUE NOT NULL, " +
+                "phone VARCHAR(20), " +
+                "role ENUM('ADMIN', 'LIBRARIAN', 'STUDENT') NOT NULL, " +
+                "is_active BOOLEAN DEFAULT false, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "approved_at TIMESTAMP NULL" +
+                ")",
+                "CREATE TABLE IF NOT EXISTS books (" +
+                "book_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "title VARCHAR(255) NOT NULL, " +
+                "author VARCHAR(255) NOT NULL, " +
+                "isbn VARCHAR(13) UNIQUE NOT NULL, " +
+                "category VARCHAR(50), " +
+                "quantity INT NOT NULL DEFAULT 1, " +
+                "available_quantity INT NOT NULL DEFAULT 1, " +
+                "shelf_location VARCHAR(50), " +
+                "is_active BOOLEAN DEFAULT true" +
+                ")",
+                "CREATE TABLE IF NOT EXISTS book_borrowings (" +
+                "borrowing_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "book_id INT NOT NULL, " +
+                "user_id INT NOT NULL, " +
+                "borrow_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "due_date TIMESTAMP NOT NULL, " +
+                "return_date TIMESTAMP NULL, " +
+                "status ENUM('BORROWED', 'RETURNED', 'OVERDUE') NOT NULL DEFAULT 'BORROWED', " +
+                "FOREIGN KEY (book_id) REFERENCES books(book_id), " +
+                "FOREIGN KEY (user_id) REFERENCES users(user_id)" +
+                ")",
+                "CREATE TABLE IF NOT EXISTS notifications (" +
+                "notification_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "user_id INT NOT NULL, " +
+                "message TEXT NOT NULL, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "is_read BOOLEAN DEFAULT false, " +
+                "FOREIGN KEY (user_id) REFERENCES users(user_id)" +
+                ")",
+                // Create default admin account if it doesn't exist
+                "INSERT IGNORE INTO users (username, password, full_name, email, role, is_active) " +
+                "VALUES ('admin', 'admin123', 'System Administrator', 'admin@library.com', 'ADMIN', true)"
+            ));
+
+        // Tables and columns the panels already query but the original setup never created.
+        // Databases set up by hand usually have the columns already, so they are added only if missing.
+        migrations.add(new Migration(2, "Fines, settings and book requests")
+            .sql(
+                "CREATE TABLE IF NOT EXISTS fines (" +
+                "fine_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "borrow_id INT NOT NULL, " +
+                "amount DECIMAL(10, 2) NOT NULL, " +
+                "status ENUM('PENDING', 'PAID', 'WAIVED') NOT NULL DEFAULT 'PENDING', " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "paid_at TIMESTAMP NULL, " +
+                "FOREIGN KEY (borrow_id) REFERENCES book_borrowings(borrowing_id)" +
+                ")",
+                "CREATE TABLE IF NOT EXISTS settings (" +
+                "user_id INT PRIMARY KEY, " +
+                "theme_mode VARCHAR(10) NOT NULL DEFAULT 'Light', " +
+                "notification_enabled BOOLEAN NOT NULL DEFAULT true, " +
+                "FOREIGN KEY (user_id) REFERENCES users(user_id)" +
+                ")",
+                "CREATE TABLE IF NOT EXISTS book_requests (" +
+                "request_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "user_id INT NOT NULL, " +
+                "book_id INT NULL, " +
+                "title VARCHAR(255), " +
+                "status ENUM('PENDING', 'APPROVED', 'REJECTED') NOT NULL DEFAULT 'PENDING', " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "FOREIGN KEY (user_id) REFERENCES users(user_id), " +
+                "FOREIGN KEY (book_id) REFERENCES books(book_id)" +
+                ")"
+            )
+            .columns("notifications", "type VARCHAR(20) NULL")
+            .columns("book_borrowings",
+                "fine_amount DECIMAL(10, 2) NOT NULL DEFAULT 0",
+                "fine_paid BOOLEAN NOT NULL DEFAULT false"));
+
+        // Composite indexes matching the predicates the panels run most
+        migrations.add(new Migration(3, "Indexes for loan, notification and catalog lookups")
+            // user_id = ? AND status = 'BORROWED' [AND due_date < CURRENT_DATE]
+            .index("book_borrowings", "idx_borrowings_user_status_due", "user_id, status, due_date")
+            // status = 'BORROWED' AND due_date < CURRENT_DATE
+            .index("book_borrowings", "idx_borrowings_status_due", "status, due_date")
+            // user_id = ? AND book_id = ? AND status = 'BORROWED'
+            .index("book_borrowings", "idx_borrowings_book_user_status", "book_id, user_id, status")
+            // user_id = ? AND is_read = false ORDER BY created_at
+            .index("notifications", "idx_notifications_user_read_created", "user_id, is_read, created_at")
+            // user_id = ? ORDER BY created_at DESC
+            .index("notifications", "idx_notifications_user_created", "user_id, created_at")
+            // role = 'STUDENT' / is_active = false
+            .index("users", "idx_users_role_active", "role, is_active")
+            .index("users", "idx_users_active", "is_active")
+            // is_active = true AND available_quantity > 0
+            .index("books", "idx_books_active_available", "is_active, available_quantity")
+            // ORDER BY f.created_at DESC
+            .index("fines", "idx_fines_created", "created_at")
+            // user_id = ? AND status = 'PENDING'
+            .index("book_requests", "idx_requests_user_status", "user_id, status"));
+
+        // Checkout in one round trip: eligibility checks, inventory, loan and notification.
+        // The student row is locked first so two desks cannot check out to the same student at once.
+        migrations.add(new Migration(4, "Checkout stored procedure")
+            .sql(
+                "DROP PROCEDURE IF EXISTS sp_checkout",
+                "CREATE PROCEDURE sp_checkout(" +
+                "IN p_user_id INT, IN p_book_id INT, IN p_loan_days INT, " +
+                "OUT p_result VARCHAR(20), OUT p_borrowing_id INT, OUT p_due_date TIMESTAMP) " +
+                "checkout: BEGIN " +
+                "DECLARE v_active BOOLEAN DEFAULT NULL; " +
+                "DECLARE v_title VARCHAR(255); " +
+                "DECLARE EXIT HANDLER FOR SQLEXCEPTION BEGIN ROLLBACK; RESIGNAL; END; " +
+                "SET p_borrowing_id = NULL; " +
+                "SET p_due_date = NULL; " +
+                "START TRANSACTION; " +
+                "SELECT is_active INTO v_active FROM users " +
+                "WHERE user_id = p_user_id AND role = 'STUDENT' FOR UPDATE; " +
+                "IF v_active IS NULL THEN " +
+                "ROLLBACK; SET p_result = 'NOT_FOUND'; LEAVE checkout; " +
+                "END IF; " +
+                "IF NOT v_active THEN " +
+                "ROLLBACK; SET p_result = 'NOT_ACTIVE'; LEAVE checkout; " +
+                "END IF; " +
+                "IF EXISTS (SELECT 1 FROM book_borrowings WHERE user_id = p_user_id " +
+                "AND status = 'BORROWED' AND due_date < CURRENT_TIMESTAMP) THEN " +
+                "ROLLBACK; SET p_result = 'HAS_OVERDUE'; LEAVE checkout; " +
+                "END IF; " +
+                "IF EXISTS (SELECT 1 FROM book_borrowings WHERE user_id = p_user_id " +
+                "AND book_id = p_book_id AND status = 'BORROWED') THEN " +
+                "ROLLBACK; SET p_result = 'ALREADY_HAS'; LEAVE checkout; " +
+                "END IF; " +
+                "UPDATE books SET available_quantity = available_quantity - 1 " +
+                "WHERE book_id = p_book_id AND is_active = true AND available_quantity > 0; " +
+                "IF ROW_COUNT() = 0 THEN " +
+                "ROLLBACK; SET p_result = 'UNAVAILABLE'; LEAVE checkout; " +
+                "END IF; " +
+                "SET p_due_date = TIMESTAMPADD(DAY, p_loan_days, CURRENT_TIMESTAMP); " +
+                "INSERT INTO book_borrowings (book_id, user_id, borrow_date, due_date, status) " +
+                "VALUES (p_book_id, p_user_id, CURRENT_TIMESTAMP, p_due_date, 'BORROWED'); " +
+                "SET p_borrowing_id = LAST_INSERT_ID(); " +
+                "SELECT title INTO v_title FROM books WHERE book_id = p_book_id; " +
+                "INSERT INTO notifications (user_id, message, is_read) " +
+                "VALUES (p_user_id, CONCAT('Book ''', v_title, ''' has been issued to you. Due date: ', " +
+                "DATE(p_due_date)), false); " +
+                "COMMIT; " +
+                "SET p_result = 'OK'; " +
+                "END"
+            ));
+
+        // Per-user notification counters kept by triggers, so every write path (batched,
+        // stored procedure, INSERT ... SELECT) updates them in the same transaction.
+        // Triggers go in before the backfill; the backfill then overwrites whatever they counted.
+        migrations.add(new Migration(5, "Notification counters")
+            .sql(
+                "CREATE TABLE IF NOT EXISTS user_notification_stats (" +
+                "user_id INT PRIMARY KEY, " +
+                "unread_count INT NOT NULL DEFAULT 0, " +
+                "total_count INT NOT NULL DEFAULT 0, " +
+                "FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE" +
+                ")",
+                "DROP TRIGGER IF EXISTS trg_notifications_insert",
+                "CREATE TRIGGER trg_notifications_insert AFTER INSERT ON notifications FOR EACH ROW " +
+                "INSERT INTO user_notification_stats (user_id, unread_count, total_count) " +
+                "VALUES (NEW.user_id, IF(NEW.is_read, 0, 1), 1) " +
+                "ON DUPLICATE KEY UPDATE unread_count = unread_count + IF(NEW.is_read, 0, 1), " +
+                "total_count = total_count + 1",
+                "DROP TRIGGER IF EXISTS trg_notifications_update",
+                "CREATE TRIGGER trg_notifications_update AFTER UPDATE ON notifications FOR EACH ROW " +
+                "UPDATE user_notification_stats " +
+                "SET unread_count = unread_count + IF(NEW.is_read, 0, 1) - IF(OLD.is_read, 0, 1) " +
+                "WHERE user_id = NEW.user_id",
+                "DROP TRIGGER IF EXISTS trg_notifications_delete",
+                "CREATE TRIGGER trg_notifications_delete AFTER DELETE ON notifications FOR EACH ROW " +
+                "UPDATE user_notification_stats " +
+                "SET unread_count = unread_count - IF(OLD.is_read, 0, 1), total_count = total_count - 1 " +
+                "WHERE user_id = OLD.user_id",
+                "INSERT INTO user_notification_stats (user_id, unread_count, total_count) " +
+                "SELECT user_id, SUM(IF(is_read, 0, 1)), COUNT(*) FROM notifications GROUP BY user_id " +
+                "ON DUPLICATE KEY UPDATE unread_count = VALUES(unread_count), total_count = VALUES(total_count)"
+            ));
+
+        // Change log tailed by every client (see ChangeFeed) so caches on other desks can evict
+        // exactly what changed. Loans and fines are logged under the student's user_id, because
+        // that is what the clients cache them by.
+        migrations.add(new Migration(6, "Change log for cross-client cache invalidation")
+            .sql(
+                "CREATE TABLE IF NOT EXISTS change_log (" +
+                "seq BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+                "entity VARCHAR(10) NOT NULL, " +
+                "entity_id INT NOT NULL, " +
+                "changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP" +
+                ")",
+                "DROP TRIGGER IF EXISTS trg_books_insert_log",
+                "CREATE TRIGGER trg_books_insert_log AFTER INSERT ON books FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('BOOK', NEW.book_id)",
+                "DROP TRIGGER IF EXISTS trg_books_update_log",
+                "CREATE TRIGGER trg_books_update_log AFTER UPDATE ON books FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('BOOK', NEW.book_id)",
+                "DROP TRIGGER IF EXISTS trg_books_delete_log",
+                "CREATE TRIGGER trg_books_delete_log AFTER DELETE ON books FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('BOOK', OLD.book_id)",
+                "DROP TRIGGER IF EXISTS trg_borrowings_insert_log",
+                "CREATE TRIGGER trg_borrowings_insert_log AFTER INSERT ON book_borrowings FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('LOAN', NEW.user_id)",
+                "DROP TRIGGER IF EXISTS trg_borrowings_update_log",
+                "CREATE TRIGGER trg_borrowings_update_log AFTER UPDATE ON book_borrowings FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('LOAN', NEW.user_id)",
+                "DROP TRIGGER IF EXISTS trg_borrowings_delete_log",
+                "CREATE TRIGGER trg_borrowings_delete_log AFTER DELETE ON book_borrowings FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('LOAN', OLD.user_id)",
+                "DROP TRIGGER IF EXISTS trg_users_insert_log",
+                "CREATE TRIGGER trg_users_insert_log AFTER INSERT ON users FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('USER', NEW.user_id)",
+                "DROP TRIGGER IF EXISTS trg_users_update_log",
+                "CREATE TRIGGER trg_users_update_log AFTER UPDATE ON users FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('USER', NEW.user_id)",
+                "DROP TRIGGER IF EXISTS trg_users_delete_log",
+                "CREATE TRIGGER trg_users_delete_log AFTER DELETE ON users FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('USER', OLD.user_id)",
+                "DROP TRIGGER IF EXISTS trg_fines_insert_log",
+                "CREATE TRIGGER trg_fines_insert_log AFTER INSERT ON fines FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('FINE', " +
+                "(SELECT user_id FROM book_borrowings WHERE borrowing_id = NEW.borrow_id))",
+                "DROP TRIGGER IF EXISTS trg_fines_update_log",
+                "CREATE TRIGGER trg_fines_update_log AFTER UPDATE ON fines FOR EACH ROW " +
+                "INSERT INTO change_log (entity, entity_id) VALUES ('FINE', " +
+                "(SELECT user_id FROM book_borrowings WHERE borrowing_id = NEW.borrow_id))"
+            )
+            // changed_at < ? when pruning
+            .index("change_log", "idx_change_log_changed", "changed_at"));
+
+        // sp_checkout again, reporting its outcome as a one-row result instead of OUT parameters.
+        // Connector/J reads OUT parameters with a metadata lookup before the CALL and a SELECT of
+        // the session variables after it; a result set comes back with the CALL itself.
+        migrations.add(new Migration(7, "Checkout procedure returns a result row")
+            .sql(
+                "DROP PROCEDURE IF EXISTS sp_checkout",
+                "CREATE PROCEDURE sp_checkout(IN p_user_id INT, IN p_book_id INT, IN p_loan_days INT) " +
+                "BEGIN " +
+                "DECLARE v_result VARCHAR(20) DEFAULT NULL; " +
+                "DECLARE v_borrowing_id INT DEFAULT NULL; " +
+                "DECLARE v_due_date TIMESTAMP NULL DEFAULT NULL; " +
+                "DECLARE v_active BOOLEAN DEFAULT NULL; " +
+                "DECLARE v_title VARCHAR(255); " +
+                "DECLARE EXIT HANDLER FOR SQLEXCEPTION BEGIN ROLLBACK; RESIGNAL; END; " +
+                "checkout: BEGIN " +
+                "START TRANSACTION; " +
+                "SELECT is_active INTO v_active FROM users " +
+                "WHERE user_id = p_user_id AND role = 'STUDENT' FOR UPDATE; " +
+                "IF v_active IS NULL THEN " +
+                "ROLLBACK; SET v_result = 'NOT_FOUND'; LEAVE checkout; " +
+                "END IF; " +
+                "IF NOT v_active THEN " +
+                "ROLLBACK; SET v_result = 'NOT_ACTIVE'; LEAVE checkout; " +
+                "END IF; " +
+                "IF EXISTS (SELECT 1 FROM book_borrowings WHERE user_id = p_user_id " +
+                "AND status = 'BORROWED' AND due_date < CURRENT_TIMESTAMP) THEN " +
+                "ROLLBACK; SET v_result = 'HAS_OVERDUE'; LEAVE checkout; " +
+                "END IF; " +
+                "IF EXISTS (SELECT 1 FROM book_borrowings WHERE user_id = p_user_id " +
+                "AND book_id = p_book_id AND status = 'BORROWED') THEN " +
+                "ROLLBACK; SET v_result = 'ALREADY_HAS'; LEAVE checkout; " +
+                "END IF; " +
+                "UPDATE books SET available_quantity = available_quantity - 1 " +
+                "WHERE book_id = p_book_id AND is_active = true AND available_quantity > 0; " +
+                "IF ROW_COUNT() = 0 THEN " +
+                "ROLLBACK; SET v_result = 'UNAVAILABLE'; LEAVE checkout; " +
+                "END IF; " +
+                "SET v_due_date = TIMESTAMPADD(DAY, p_loan_days, CURRENT_TIMESTAMP); " +
+                "INSERT INTO book_borrowings (book_id, user_id, borrow_date, due_date, status) " +
+                "VALUES (p_book_id, p_user_id, CURRENT_TIMESTAMP, v_due_date, 'BORROWED'); " +
+                "SET v_borrowing_id = LAST_INSERT_ID(); " +
+                "SELECT title INTO v_title FROM books WHERE book_id = p_book_id; " +
+                "INSERT INTO notifications (user_id, message, is_read) " +
+                "VALUES (p_user_id, CONCAT('Book ''', v_title, ''' has been issued to you. Due date: ', " +
+                "DATE(v_due_date)), false); " +
+                "COMMIT; " +
+                "SET v_result = 'OK'; " +
+                "END checkout; " +
+                "SELECT v_result, v_borrowing_id, v_due_date; " +
+                "END"
+            ));
+
+        return migrations;
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final List<String> statements = new ArrayList<>();
+        private final List<Columns> columns = new ArrayList<>();
+        private final List<Index> indexes = new ArrayList<>();
+
+        Migration(int version, String description) {
+            this.version = version;
+            this.description = description;
+        }
+
+        Migration sql(String... sql) {
+            statements.addAll(Arrays.asList(sql));
+            return this;
+        }
+
+        // Columns added to an existing table, each only when the table does not have it yet
+        Migration columns(String table, String... definitions) {
+            columns.add(new Columns(table, definitions));
+            return this;
+        }
+
+        Migration index(String table, String name, String columns) {
+            indexes.add(new Index(table, name, columns));
+            return this;
+        }
+
+        String checksum() {
+            CRC32 crc = new CRC32();
+            for (String sql : statements) {
+                crc.update(sql.getBytes(StandardCharsets.UTF_8));
+                crc.update('\n');
+            }
+            for (Columns column : columns) {
+                // Checksummed as the plain ALTER TABLE, which is how V2 first shipped
+                crc.update(column.ddl().getBytes(StandardCharsets.UTF_8));
+                crc.update('\n');
+            }
+            for (Index index : indexes) {
+                crc.update((index.table + "." + index.name + "(" + index.columns + ")\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return String.format("%08x", crc.getValue());
+        }
+    }
+
+    private static class Columns {
+        private final String table;
+        private final List<String> definitions;
+
+        Columns(String table, String... definitions) {
+            this.table = table;
+            this.definitions = Arrays.asList(definitions);
+        }
+
+        String ddl() {
+            return "ALTER TABLE " + table + " ADD COLUMN " + String.join(", ADD COLUMN ", definitions);
+        }
+    }
+
+    private static class Index {
+        private final String table;
+        private final String name;
+        private final String columns;
+
+        Index(String table, String name, String columns) {
+            this.table = table;
+            this.name = name;
+            this.columns = columns;
+        }
+    }
+}
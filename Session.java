@@ -0,0 +1,69 @@
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Everything the UI needs to know about the logged-in user, read once by the login query.
+// Immutable: saving settings produces a new Session instead of changing this one.
+public final class Session {
+    public enum Permission {
+        APPROVE_USERS,
+        MANAGE_LIBRARIANS,
+        MANAGE_BOOKS,
+        ISSUE_BOOKS,
+        VIEW_STUDENT_RECORDS,
+        VIEW_REPORTS,
+        MANAGE_FINES,
+        VIEW_QUERY_STATISTICS,
+        BORROW_BOOKS
+    }
+
+    public static final String THEME_LIGHT = "Light";
+    public static final String THEME_DARK = "Dark";
+
+    private final User user;
+    private final String themeMode;
+    private final boolean notificationsEnabled;
+    private final Set<Permission> permissions;
+
+    public Session(User user, String themeMode, boolean notificationsEnabled) {
+        this.user = user;
+        this.themeMode = themeMode != null ? themeMode : THEME_LIGHT;
+        this.notificationsEnabled = notificationsEnabled;
+        this.permissions = Collections.unmodifiableSet(permissionsFor(user.getRole()));
+    }
+
+    private static Set<Permission> permissionsFor(String role) {
+        switch (role == null ? "" : role.toUpperCase()) {
+            case "ADMIN":
+                return EnumSet.of(Permission.APPROVE_USERS, Permission.MANAGE_LIBRARIANS,
+                    Permission.VIEW_REPORTS, Permission.MANAGE_FINES, Permission.VIEW_QUERY_STATISTICS);
+            case "LIBRARIAN":
+                return EnumSet.of(Permission.MANAGE_BOOKS, Permission.ISSUE_BOOKS,
+                    Permission.VIEW_STUDENT_RECORDS);
+            case "STUDENT":
+                return EnumSet.of(Permission.BORROW_BOOKS);
+            default:
+                return EnumSet.noneOf(Permission.class);
+        }
+    }
+
+    public User getUser() { return user; }
+    public int getUserId() { return user.getId(); }
+    public String getRole() { return user.getRole(); }
+    public String getThemeMode() { return themeMode; }
+    public boolean isDarkMode() { return THEME_DARK.equalsIgnoreCase(themeMode); }
+    public boolean isNotificationsEnabled() { return notificationsEnabled; }
+
+    public boolean has(Permission permission) {
+        return permissions.contains(permission);
+    }
+
+    // Full name, else username, else the given fallback
+    public String getDisplayName(String fallback) {
+        return UserRepository.displayName(user, fallback);
+    }
+
+    public Session withSettings(String themeMode, boolean notificationsEnabled) {
+        return new Session(user, themeMode, notificationsEnabled);
+    }
+}
@@ -1,17 +1,23 @@
 import javax.swing.*;
 import java.awt.*;
-import java.sql.*;
+import java.sql.SQLException;
+import java.util.function.Consumer;
 
 public class SettingsPanel extends JPanel {
     private int userId;
+    private Session session;
+    private final Consumer<Session> onSaved;
     private JComboBox<String> themeComboBox;
     private JCheckBox notificationsCheckBox;
     private JPasswordField currentPasswordField;
     private JPasswordField newPasswordField;
     private JPasswordField confirmPasswordField;
 
-    public SettingsPanel(int userId) {
-        this.userId = userId;
+    // onSaved receives the session carrying the new settings
+    public SettingsPanel(Session session, Consumer<Session> onSaved) {
+        this.session = session;
+        this.userId = session.getUserId();
+        this.onSaved = onSaved;
         setLayout(new BorderLayout());
         
         // Create settings panel
@@ -90,21 +96,8 @@ public class SettingsPanel extends JPanel {
     }
 
     private void loadSettings() {
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT theme_mode, notification_enabled FROM settings WHERE user_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setInt(1, userId);
-            
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                themeComboBox.setSelectedItem(rs.getString("theme_mode"));
-                notificationsCheckBox.setSelected(rs.getBoolean("notification_enabled"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading settings: " + e.getMessage());
-        }
+        themeComboBox.setSelectedItem(session.isDarkMode() ? Session.THEME_DARK : Session.THEME_LIGHT);
+        notificationsCheckBox.setSelected(session.isNotificationsEnabled());
     }
 
     private void saveSettings() {
@@ -115,19 +108,10 @@ public class SettingsPanel extends JPanel {
         String confirmPassword = new String(confirmPasswordField.getPassword());
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            
             // Update settings
-            String settingsQuery = "INSERT INTO settings (user_id, theme_mode, notification_enabled) " +
-                                 "VALUES (?, ?, ?) " +
-                                 "ON DUPLICATE KEY UPDATE theme_mode = ?, notification_enabled = ?";
-            PreparedStatement settingsStmt = conn.prepareStatement(settingsQuery);
-            settingsStmt.setInt(1, userId);
-            settingsStmt.setString(2, theme);
-            settingsStmt.setBoolean(3, notifications);
-            settingsStmt.setString(4, theme);
-            settingsStmt.setBoolean(5, notifications);
-            settingsStmt.executeUpdate();
+            UserRepository.saveSettings(userId, theme, notifications);
+            session = session.withSettings(theme, notifications);
+            onSaved.accept(session);
 
             // Update password if provided
             if (!currentPassword.isEmpty() && !newPassword.isEmpty()) {
@@ -136,13 +120,13 @@ public class SettingsPanel extends JPanel {
                     return;
                 }
 
-                String passwordQuery = "UPDATE users SET password = ? WHERE user_id = ? AND password = ?";
-                PreparedStatement passwordStmt = conn.prepareStatement(passwordQuery);
-                passwordStmt.setString(1, newPassword);
-                passwordStmt.setInt(2, userId);
-                passwordStmt.setString(3, currentPassword);
-                
-                int updated = passwordStmt.executeUpdate();
+                int updated = DatabaseConnection.update(
+                    "UPDATE users SET password = ? WHERE user_id = ? AND password = ?",
+                    stmt -> {
+                        stmt.setString(1, newPassword);
+                        stmt.setInt(2, userId);
+                        stmt.setString(3, currentPassword);
+                    });
                 if (updated > 0) {
                     JOptionPane.showMessageDialog(this, "Password updated successfully!");
                     clearPasswordFields();
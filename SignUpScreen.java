@@ -211,49 +211,49 @@ public class SignUpScreen extends JFrame {
         }
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // Check if username already exists
-            String checkQuery = "SELECT COUNT(*) FROM users WHERE username = ?";
-            PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-            checkStmt.setString(1, username);
-            ResultSet rs = checkStmt.executeQuery();
-            rs.next();
-            if (rs.getInt(1) > 0) {
-                JOptionPane.showMessageDialog(this, "Username already exists!");
-                return;
+            // Only ask the database when the in-memory filters say the name or email may be taken;
+            // a certain miss goes straight to the insert and the unique indexes
+            if (UserIdentifiers.mayHaveUsername(username) || UserIdentifiers.mayHaveEmail(email)) {
+                boolean[] taken = UserRepository.findTaken(username, email);
+                if (taken[0]) {
+                    JOptionPane.showMessageDialog(this, "Username already exists!");
+                    return;
+                }
+                if (taken[1]) {
+                    JOptionPane.showMessageDialog(this, "Email already registered!");
+                    return;
+                }
             }
 
-            // Check if email already exists
-            checkQuery = "SELECT COUNT(*) FROM users WHERE email = ?";
-            checkStmt = conn.prepareStatement(checkQuery);
-            checkStmt.setString(1, email);
-            rs = checkStmt.executeQuery();
-            rs.next();
-            if (rs.getInt(1) > 0) {
-                JOptionPane.showMessageDialog(this, "Email already registered!");
-                return;
+            // Insert new user; the connection is held for the insert only, never across a dialog
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String insertQuery = "INSERT INTO users (username, password, email, full_name, role, is_active) " +
+                                   "VALUES (?, ?, ?, ?, ?, ?)";
+                PreparedStatement pstmt = conn.prepareStatement(insertQuery);
+                pstmt.setString(1, username);
+                pstmt.setString(2, password);
+                pstmt.setString(3, email);
+                pstmt.setString(4, fullName);
+                pstmt.setString(5, role.toUpperCase());
+                pstmt.setBoolean(6, false);  // Account needs admin approval
+                
+                pstmt.executeUpdate();
             }
+            LibraryStats.userAdded(false);
+            UserIdentifiers.added(username, email);
 
-            // Insert new user
-            String insertQuery = "INSERT INTO users (username, password, email, full_name, role, is_active) " +
-                               "VALUES (?, ?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = conn.prepareStatement(insertQuery);
-            pstmt.setString(1, username);
-            pstmt.setString(2, password);
-            pstmt.setString(3, email);
-            pstmt.setString(4, fullName);
-            pstmt.setString(5, role.toUpperCase());
-            pstmt.setBoolean(6, false);  // Account needs admin approval
-            
-            pstmt.executeUpdate();
-
-            // Create notification for admin
+            // Create notification for admin; written by the batch writer after the account is in,
+            // so a failed flush only loses the notification and is logged
             String notifyQuery = "INSERT INTO notifications (user_id, message, type) " +
                                "SELECT user_id, ?, 'APPROVAL' FROM users WHERE role = 'ADMIN'";
-            PreparedStatement notifyStmt = conn.prepareStatement(notifyQuery);
-            notifyStmt.setString(1, "New " + role + " account registration: " + username);
-            notifyStmt.executeUpdate();
+            String notifyMessage = "New " + role + " account registration: " + username;
+            DatabaseConnection.getBatchWriter().submit(notifyQuery, stmt -> stmt.setString(1, notifyMessage))
+                .whenComplete((rows, error) -> {
+                    if (error != null) {
+                        System.err.println("Approval notification for " + username + " not written: " + error.getMessage());
+                        error.printStackTrace();
+                    }
+                });
 
             JOptionPane.showMessageDialog(this, 
                 "Account created successfully!\nPlease wait for admin approval to login.");
@@ -262,12 +262,24 @@ public class SignUpScreen extends JFrame {
             new LoginScreen().setVisible(true);
             this.dispose();
 
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Registered by someone else since the check, or missed by the filters
+            JOptionPane.showMessageDialog(this, isDuplicateEmail(e)
+                ? "Email already registered!" : "Username already exists!");
         } catch (SQLException e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error creating account: " + e.getMessage());
         }
     }
 
+    // MySQL ends the message with the violated index, "for key 'email'" or since 8.0.19
+    // "for key 'users.email'". The duplicate value comes earlier in the text, so it cannot match.
+    private static boolean isDuplicateEmail(SQLException e) {
+        String message = e.getMessage();
+        return message != null
+            && (message.endsWith("for key 'email'") || message.endsWith("for key 'users.email'"));
+    }
+
     private boolean isValidEmail(String email) {
         String emailRegex = "^[A-Za-z0-9+_.-]+@(.+)$";
         return email.matches(emailRegex);
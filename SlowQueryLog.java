@@ -0,0 +1,235 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writes statements slower than a threshold, with their bound parameters and EXPLAIN output,
+// to a size-rotated local file. Callers only enqueue; formatting, EXPLAIN and file I/O happen on
+// a background thread using its own side connection, so logging never slows the query down.
+public class SlowQueryLog {
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final long EXPLAIN_INTERVAL_MS = 10 * 60 * 1000;
+    private static final int MAX_PARAM_LENGTH = 200;
+
+    private final long thresholdNanos;
+    private final File file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final ConnectionPool.ConnectionFactory sideConnections;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private Connection sideConnection;
+    private Writer writer;
+
+    private static class Entry {
+        private final long timestamp = System.currentTimeMillis();
+        private final String sql;
+        private final String shape;
+        private final Object[] params;
+        private final long nanos;
+        private final boolean failed;
+
+        Entry(String sql, String shape, Object[] params, long nanos, boolean failed) {
+            this.sql = sql;
+            this.shape = shape;
+            this.params = params;
+            this.nanos = nanos;
+            this.failed = failed;
+        }
+    }
+
+    public SlowQueryLog(long thresholdMillis, File file, long maxFileBytes, int maxFiles,
+                        ConnectionPool.ConnectionFactory sideConnections) {
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.sideConnections = sideConnections;
+
+        Thread t = new Thread(this::drain, "db-slow-query-log");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public boolean isSlow(long nanos) {
+        return thresholdNanos >= 0 && nanos >= thresholdNanos;
+    }
+
+    // Called on the querying thread; never blocks. Entries are dropped if the writer falls behind.
+    public void record(String sql, String shape, Object[] params, long nanos, boolean failed) {
+        if (!queue.offer(new Entry(sql, shape, params, nanos, failed))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getLoggedCount() {
+        return logged.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private void drain() {
+        while (true) {
+            Entry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                write(format(entry));
+                logged.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not write slow query log: " + e.getMessage());
+            }
+        }
+    }
+
+    private String format(Entry entry) {
+        StringBuilder out = new StringBuilder();
+        out.append("# ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(entry.timestamp)))
+            .append(String.format("  time=%.1f ms", entry.nanos / 1_000_000.0))
+            .append(entry.failed ? "  FAILED" : "")
+            .append(System.lineSeparator());
+        out.append(entry.sql.trim()).append(System.lineSeparator());
+        if (entry.params != null && entry.params.length > 0) {
+            out.append("# params:");
+            for (int i = 0; i < entry.params.length; i++) {
+                out.append(' ').append(i + 1).append('=').append(formatParam(entry.params[i]));
+            }
+            out.append(System.lineSeparator());
+        }
+        String plan = explainOnce(entry);
+        if (plan != null) {
+            out.append(plan);
+        }
+        out.append(System.lineSeparator());
+        return out.toString();
+    }
+
+    // EXPLAIN each statement shape at most once per interval; plans rarely change between calls
+    private String explainOnce(Entry entry) {
+        String verb = entry.sql.trim().split("\\s+", 2)[0].toUpperCase();
+        if (!verb.equals("SELECT") && !verb.equals("UPDATE") && !verb.equals("DELETE") && !verb.equals("INSERT")) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Long last = lastExplained.get(entry.shape);
+        if (last != null && now - last < EXPLAIN_INTERVAL_MS) {
+            return "# plan: see earlier entry for this statement" + System.lineSeparator();
+        }
+        lastExplained.put(entry.shape, now);
+
+        try {
+            if (sideConnection == null || sideConnection.isClosed()) {
+                sideConnection = sideConnections.create();
+            }
+            try (PreparedStatement stmt = sideConnection.prepareStatement("EXPLAIN " + entry.sql)) {
+                if (entry.params != null) {
+                    for (int i = 0; i < entry.params.length; i++) {
+                        stmt.setObject(i + 1, entry.params[i]);
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return formatPlan(rs);
+                }
+            }
+        } catch (SQLException e) {
+            closeSideConnection();
+            lastExplained.remove(entry.shape);
+            return "# plan unavailable: " + e.getMessage() + System.lineSeparator();
+        }
+    }
+
+    private String formatPlan(ResultSet rs) throws SQLException {
+        StringBuilder out = new StringBuilder();
+        ResultSetMetaData meta = rs.getMetaData();
+        while (rs.next()) {
+            out.append("# plan:");
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                Object value = rs.getObject(i);
+                if (value != null) {
+                    out.append(' ').append(meta.getColumnLabel(i)).append('=').append(value);
+                }
+            }
+            out.append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    private static String formatParam(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof byte[]) {
+            return "<" + ((byte[]) value).length + " bytes>";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        String text = value.toString();
+        if (text.length() > MAX_PARAM_LENGTH) {
+            text = text.substring(0, MAX_PARAM_LENGTH) + "...";
+        }
+        return "'" + text.replace("'", "''") + "'";
+    }
+
+    private void write(String text) throws IOException {
+        if (writer == null) {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null) {
+                dir.mkdirs();
+            }
+            writer = new FileWriter(file, true);
+        }
+        writer.write(text);
+        writer.flush();
+        if (file.length() >= maxFileBytes) {
+            rotate();
+        }
+    }
+
+    // slow-query.log -> slow-query.log.1 -> ... -> slow-query.log.<maxFiles>, oldest deleted
+    private void rotate() throws IOException {
+        writer.close();
+        writer = null;
+        new File(file.getPath() + "." + maxFiles).delete();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File older = new File(file.getPath() + "." + i);
+            if (older.exists()) {
+                older.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+        }
+        file.renameTo(new File(file.getPath() + ".1"));
+    }
+
+    private void closeSideConnection() {
+        if (sideConnection != null) {
+            try {
+                sideConnection.close();
+            } catch (SQLException ignored) {
+            }
+            sideConnection = null;
+        }
+    }
+}
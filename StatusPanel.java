@@ -3,14 +3,14 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
 
-public class StatusPanel extends JPanel {
-    private int userId;
+public class StatusPanel extends JPanel implements PanelRegistry.Refreshable {
+    private StudentLoanState loanState;
     private JTable borrowingsTable;
     private DefaultTableModel tableModel;
     private JLabel fineLabel;
 
-    public StatusPanel(int userId) {
-        this.userId = userId;
+    public StatusPanel(StudentLoanState loanState) {
+        this.loanState = loanState;
         setLayout(new BorderLayout());
         
         // Create header panel with fine information
@@ -46,26 +46,22 @@ public class StatusPanel extends JPanel {
         borrowingsTable = new JTable(tableModel);
     }
 
+    @Override
+    public void refresh() {
+        loadBorrowings();
+        updateFineAmount();
+    }
+
     private void loadBorrowings() {
         tableModel.setRowCount(0);
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT b.title, bb.borrow_date, bb.due_date, bb.status, bb.fine_amount " +
-                          "FROM book_borrowings bb " +
-                          "JOIN books b ON bb.book_id = b.book_id " +
-                          "WHERE bb.user_id = ? " +
-                          "ORDER BY bb.borrow_date DESC";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setInt(1, userId);
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
+            for (Borrowing borrowing : loanState.getHistory()) {
                 Object[] row = {
-                    rs.getString("title"),
-                    rs.getDate("borrow_date"),
-                    rs.getDate("due_date"),
-                    rs.getString("status"),
-                    String.format("$%.2f", rs.getDouble("fine_amount"))
+                    borrowing.getBookTitle(),
+                    Borrowing.dateOf(borrowing.getBorrowDate()),
+                    Borrowing.dateOf(borrowing.getDueDate()),
+                    borrowing.getStatus(),
+                    String.format("$%.2f", borrowing.getFineAmount())
                 };
                 tableModel.addRow(row);
             }
@@ -77,16 +73,8 @@ public class StatusPanel extends JPanel {
 
     private void updateFineAmount() {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT SUM(fine_amount) FROM book_borrowings WHERE user_id = ? AND fine_paid = false";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setInt(1, userId);
-            
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                double totalFine = rs.getDouble(1);
-                fineLabel.setText(String.format("Total Outstanding Fines: $%.2f", totalFine));
-            }
+            double totalFine = loanState.getOutstandingFines();
+            fineLabel.setText(String.format("Total Outstanding Fines: $%.2f", totalFine));
         } catch (SQLException e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error calculating fines: " + e.getMessage());
@@ -8,10 +8,21 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.Map;
 
 public class StudentDashboard extends JFrame {
+    // Menu entries and quick actions shown only when the session holds the permission
+    private static final Map<String, Session.Permission> MENU_PERMISSIONS = Map.of(
+        "Borrow Books", Session.Permission.BORROW_BOOKS,
+        "Return Books", Session.Permission.BORROW_BOOKS,
+        "View Status", Session.Permission.BORROW_BOOKS,
+        "Request Books", Session.Permission.BORROW_BOOKS);
+
+    private Session session;
     private int userId;
-    private JPanel contentPanel;
+    private StudentLoanState loanState;
+    private ChangeFeed.Listener loanListener;
+    private PanelRegistry contentPanel;
     private boolean isDarkMode = false;
     private Color darkBackground = new Color(33, 33, 33);
     private Color lightBackground = new Color(242, 242, 242);
@@ -21,26 +32,25 @@ public class StudentDashboard extends JFrame {
     private JPanel menuPanel;
     private String userName;
 
-    public StudentDashboard(int userId) {
-        this.userId = userId;
+    public StudentDashboard(Session session) {
+        this.session = session;
+        this.userId = session.getUserId();
+        this.loanState = new StudentLoanState(userId);
+        // Loans issued, returned or fined at a desk are re-read on the student's next screen
+        this.loanListener = (entity, id) -> {
+            if ((entity == ChangeFeed.Entity.LOAN || entity == ChangeFeed.Entity.FINE)
+                    && (id == userId || id == ChangeFeed.ALL)) {
+                loanState.invalidate();
+            }
+        };
+        ChangeFeed.addListener(loanListener);
+        this.isDarkMode = session.isDarkMode();
         setTitle("Library Management System - Student Dashboard");
         setSize(1200, 800);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        // Get user name from database
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement("SELECT name FROM users WHERE id = ?");
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                userName = rs.getString("name");
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            userName = "Student";
-        }
+        userName = session.getDisplayName("Student");
 
         // Create split pane
         JSplitPane splitPane = new JSplitPane();
@@ -48,10 +58,9 @@ public class StudentDashboard extends JFrame {
         
         // Create menu panel
         menuPanel = createMenuPanel();
-        contentPanel = new JPanel();
-        contentPanel.setLayout(new BorderLayout());
-        
-        showWelcomeMessage();
+        contentPanel = new PanelRegistry();
+        registerPanels();
+        contentPanel.show("Home");
 
         splitPane.setLeftComponent(menuPanel);
         splitPane.setRightComponent(contentPanel);
@@ -59,6 +68,7 @@ public class StudentDashboard extends JFrame {
         splitPane.setDividerSize(1);
 
         add(splitPane);
+        add(new ConnectionStatusBar(), BorderLayout.SOUTH);
         applyTheme();
     }
 
@@ -126,6 +136,9 @@ public class StudentDashboard extends JFrame {
         };
 
         for (int i = 0; i < menuItems.length; i++) {
+            if (!isAllowed(menuItems[i])) {
+                continue;
+            }
             JPanel buttonPanel = new JPanel(new BorderLayout());
             buttonPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 50));
             buttonPanel.setOpaque(false);
@@ -139,6 +152,11 @@ public class StudentDashboard extends JFrame {
         return panel;
     }
 
+    private boolean isAllowed(String menuItem) {
+        Session.Permission required = MENU_PERMISSIONS.get(menuItem);
+        return required == null || session.has(required);
+    }
+
     private JButton createMenuButton(String text, String icon) {
         JButton button = new JButton(icon + "  " + text);
         button.setFont(new Font("Segoe UI", Font.PLAIN, 13));
@@ -192,6 +210,7 @@ public class StudentDashboard extends JFrame {
 
     private void toggleTheme() {
         isDarkMode = !isDarkMode;
+        contentPanel.clear();
         applyTheme();
     }
 
@@ -224,9 +243,22 @@ public class StudentDashboard extends JFrame {
         SwingUtilities.updateComponentTreeUI(this);
     }
 
-    private void showWelcomeMessage() {
-        contentPanel.removeAll();
-        
+    // Screens are built on first show and reloaded only when the loans or books they list have changed
+    private void registerPanels() {
+        contentPanel.register("Home", this::createWelcomePanel, DataVersions.Domain.LOANS);
+        contentPanel.register("Borrow Books", () -> new BorrowBooksPanel(loanState),
+            DataVersions.Domain.BOOKS, DataVersions.Domain.LOANS);
+        contentPanel.register("Return Books", () -> new ReturnBooksPanel(loanState, isDarkMode),
+            DataVersions.Domain.LOANS);
+        contentPanel.register("View Status", () -> new StatusPanel(loanState),
+            DataVersions.Domain.LOANS, DataVersions.Domain.FINES);
+        contentPanel.register("Request Books", () -> new RequestBooksPanel(loanState),
+            DataVersions.Domain.BOOKS, DataVersions.Domain.LOANS);
+        // New notifications are written by other desks (issues, approvals), so reload on every visit
+        contentPanel.registerAlwaysRefreshed("Notifications", () -> new NotificationPanel(session, isDarkMode));
+    }
+
+    private JPanel createWelcomePanel() {
         JPanel welcomePanel = new JPanel(new GridBagLayout());
         welcomePanel.setBackground(isDarkMode ? darkBackground : lightBackground);
         
@@ -247,37 +279,17 @@ public class StudentDashboard extends JFrame {
         statsPanel.setMaximumSize(new Dimension(800, 150));
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            
             // Borrowed books card
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT COUNT(*) FROM book_borrowings WHERE user_id = ? AND status = 'BORROWED'"
-            );
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                statsPanel.add(createStatCard("", "Borrowed Books", String.valueOf(rs.getInt(1))));
-            }
+            statsPanel.add(createStatCard("", "Borrowed Books",
+                String.valueOf(loanState.countActive())));
 
             // Pending requests card
-            stmt = conn.prepareStatement(
-                "SELECT COUNT(*) FROM book_requests WHERE user_id = ? AND status = 'PENDING'"
-            );
-            stmt.setInt(1, userId);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                statsPanel.add(createStatCard("", "Pending Requests", String.valueOf(rs.getInt(1))));
-            }
+            statsPanel.add(createStatCard("", "Pending Requests",
+                String.valueOf(LibraryStats.getPendingRequests(userId))));
 
             // Overdue books card
-            stmt = conn.prepareStatement(
-                "SELECT COUNT(*) FROM book_borrowings WHERE user_id = ? AND status = 'BORROWED' AND return_date < CURRENT_DATE"
-            );
-            stmt.setInt(1, userId);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                statsPanel.add(createStatCard("", "Overdue Books", String.valueOf(rs.getInt(1))));
-            }
+            statsPanel.add(createStatCard("", "Overdue Books",
+                String.valueOf(loanState.countOverdue())));
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
@@ -290,17 +302,15 @@ public class StudentDashboard extends JFrame {
         quickActionsPanel.setOpaque(false);
         quickActionsPanel.setMaximumSize(new Dimension(800, 200));
 
-        quickActionsPanel.add(createQuickActionCard("Borrow Books", "", "Borrow new books"));
-        quickActionsPanel.add(createQuickActionCard("Return Books", "", "Return borrowed books"));
-        quickActionsPanel.add(createQuickActionCard("View Status", "", "Check your status"));
-        quickActionsPanel.add(createQuickActionCard("Request Books", "", "Request new books"));
+        addQuickAction(quickActionsPanel, "Borrow Books", "", "Borrow new books");
+        addQuickAction(quickActionsPanel, "Return Books", "", "Return borrowed books");
+        addQuickAction(quickActionsPanel, "View Status", "", "Check your status");
+        addQuickAction(quickActionsPanel, "Request Books", "", "Request new books");
 
         gbc.insets = new Insets(20, 20, 20, 20);
         welcomePanel.add(quickActionsPanel, gbc);
 
-        contentPanel.add(welcomePanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        return welcomePanel;
     }
 
     private JPanel createStatCard(String icon, String title, String value) {
@@ -331,6 +341,12 @@ public class StudentDashboard extends JFrame {
         return card;
     }
 
+    private void addQuickAction(JPanel panel, String title, String icon, String description) {
+        if (isAllowed(title)) {
+            panel.add(createQuickActionCard(title, icon, description));
+        }
+    }
+
     private JPanel createQuickActionCard(String title, String icon, String description) {
         JPanel card = new JPanel(new BorderLayout());
         card.setBackground(isDarkMode ? new Color(50, 50, 50) : Color.WHITE);
@@ -389,70 +405,23 @@ public class StudentDashboard extends JFrame {
     }
 
     private void showBorrowBooks() {
-        contentPanel.removeAll();
-        BorrowBooksPanel borrowPanel = new BorrowBooksPanel(userId);
-        contentPanel.add(borrowPanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Borrow Books");
     }
 
     private void showReturnBooks() {
-        contentPanel.removeAll();
-        try {
-            ReturnBooksPanel returnPanel = new ReturnBooksPanel(userId, isDarkMode);
-            contentPanel.add(returnPanel);
-        } catch (Exception ex) {
-            JPanel errorPanel = new JPanel(new GridBagLayout());
-            errorPanel.setBackground(isDarkMode ? darkBackground : lightBackground);
-            
-            JLabel errorLabel = new JLabel("Error loading return books panel: " + ex.getMessage());
-            errorLabel.setForeground(Color.RED);
-            errorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-            
-            errorPanel.add(errorLabel);
-            contentPanel.add(errorPanel);
-            ex.printStackTrace();
-        }
-        contentPanel.revalidate();
-        contentPanel.repaint();
-    }
-    
-    private void showErrorMessage(String message) {
-        JPanel errorPanel = new JPanel(new GridBagLayout());
-        errorPanel.setBackground(isDarkMode ? darkBackground : lightBackground);
-        
-        JLabel errorLabel = new JLabel(message);
-        errorLabel.setForeground(Color.RED);
-        errorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        
-        errorPanel.add(errorLabel);
-        contentPanel.add(errorPanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Return Books");
     }
 
     private void showStatus() {
-        contentPanel.removeAll();
-        StatusPanel statusPanel = new StatusPanel(userId);
-        contentPanel.add(statusPanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("View Status");
     }
 
     private void showRequestBooks() {
-        contentPanel.removeAll();
-        RequestBooksPanel requestPanel = new RequestBooksPanel(userId);
-        contentPanel.add(requestPanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Request Books");
     }
 
     private void showNotifications() {
-        contentPanel.removeAll();
-        NotificationPanel notificationPanel = new NotificationPanel(userId, isDarkMode);    
-        contentPanel.add(notificationPanel);
-        contentPanel.revalidate();
-        contentPanel.repaint();
+        contentPanel.show("Notifications");
     }
 
     private void logout() {
@@ -464,6 +433,7 @@ public class StudentDashboard extends JFrame {
         );
         
         if (confirm == JOptionPane.YES_OPTION) {
+            ChangeFeed.removeListener(loanListener);
             this.dispose();
             new LoginScreen().setVisible(true);
         }
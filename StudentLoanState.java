@@ -0,0 +1,162 @@
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// One student's loans for the lifetime of their dashboard: current loans, history, overdue
+// flags, reissue eligibility and outstanding fines. Read once with a single query and then
+// updated in place by borrow, return and reissue, so the student screens can share it without
+// going back to book_borrowings. It is re-read when older than maxAgeMs, which picks up loans
+// issued or fines recorded by a librarian in the meantime.
+public class StudentLoanState {
+    private static final long MAX_AGE_MS = Long.getLong("library.session.loanStateMaxAgeMs", 300_000);
+    public static final int REISSUE_DAYS = 7;
+
+    private final int userId;
+    private List<Borrowing> history; // newest first, as BorrowingRepository returns it
+    private long loadedAt;
+
+    public StudentLoanState(int userId) {
+        this.userId = userId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    // Every loan of the student, newest first
+    public synchronized List<Borrowing> getHistory() throws SQLException {
+        return new ArrayList<>(loans());
+    }
+
+    // Loans still out, soonest due first
+    public synchronized List<Borrowing> getActiveLoans() throws SQLException {
+        List<Borrowing> active = new ArrayList<>();
+        for (Borrowing borrowing : loans()) {
+            if (borrowing.isActive()) {
+                active.add(borrowing);
+            }
+        }
+        active.sort(Comparator.comparing(Borrowing::getDueDate));
+        return active;
+    }
+
+    public synchronized int countActive() throws SQLException {
+        int count = 0;
+        for (Borrowing borrowing : loans()) {
+            if (borrowing.isActive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized int countOverdue() throws SQLException {
+        int count = 0;
+        for (Borrowing borrowing : loans()) {
+            if (borrowing.isOverdue()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean hasOverdue() throws SQLException {
+        return countOverdue() > 0;
+    }
+
+    public synchronized boolean hasBorrowed(int bookId) throws SQLException {
+        for (Borrowing borrowing : loans()) {
+            if (borrowing.isActive() && borrowing.getBookId() == bookId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized double getOutstandingFines() throws SQLException {
+        double total = 0;
+        for (Borrowing borrowing : loans()) {
+            if (!borrowing.isFinePaid()) {
+                total += borrowing.getFineAmount();
+            }
+        }
+        return total;
+    }
+
+    // A loan may be extended once: while it is out and its due date is still the original one
+    public synchronized boolean canReissue(int borrowingId) throws SQLException {
+        Borrowing borrowing = find(borrowingId);
+        if (borrowing == null || !borrowing.isActive()) {
+            return false;
+        }
+        long loanMillis = BorrowingRepository.LOAN_DAYS * 24L * 60 * 60 * 1000;
+        return borrowing.getDueDate().getTime() <= borrowing.getBorrowDate().getTime() + loanMillis;
+    }
+
+    // In-place updates, applied after the change has committed
+
+    // A loan written with borrow_date = CURRENT_DATE and the standard loan period
+    public synchronized void loanOpened(int borrowingId, int bookId, String bookTitle) {
+        if (history == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        history.add(0, new Borrowing(borrowingId, bookId, userId, bookTitle,
+            Timestamp.valueOf(today.atStartOfDay()),
+            Timestamp.valueOf(today.plusDays(BorrowingRepository.LOAN_DAYS).atStartOfDay()),
+            null, "BORROWED", 0, false));
+    }
+
+    public synchronized void loanReturned(int bookId) {
+        if (history == null) {
+            return;
+        }
+        for (int i = 0; i < history.size(); i++) {
+            Borrowing borrowing = history.get(i);
+            if (borrowing.isActive() && borrowing.getBookId() == bookId) {
+                history.set(i, borrowing.returnedAt(Timestamp.valueOf(LocalDate.now().atStartOfDay())));
+                return;
+            }
+        }
+    }
+
+    public synchronized void loanReissued(int borrowingId, int days) {
+        DataVersions.bump(DataVersions.Domain.LOANS);
+        if (history == null) {
+            return;
+        }
+        for (int i = 0; i < history.size(); i++) {
+            Borrowing borrowing = history.get(i);
+            if (borrowing.getId() == borrowingId) {
+                long extended = borrowing.getDueDate().getTime() + days * 24L * 60 * 60 * 1000;
+                history.set(i, borrowing.withDueDate(new Timestamp(extended)));
+                return;
+            }
+        }
+    }
+
+    // Forces a re-read on next access
+    public synchronized void invalidate() {
+        history = null;
+    }
+
+    private Borrowing find(int borrowingId) throws SQLException {
+        for (Borrowing borrowing : loans()) {
+            if (borrowing.getId() == borrowingId) {
+                return borrowing;
+            }
+        }
+        return null;
+    }
+
+    private List<Borrowing> loans() throws SQLException {
+        if (history == null || System.currentTimeMillis() - loadedAt > MAX_AGE_MS) {
+            history = new ArrayList<>(BorrowingRepository.findHistoryByUser(userId));
+            loadedAt = System.currentTimeMillis();
+        }
+        return history;
+    }
+}
@@ -1,10 +1,9 @@
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
 
 public class StudentRecordsPanel extends JPanel {
     private int userId;
@@ -13,9 +12,10 @@ public class StudentRecordsPanel extends JPanel {
     private Color lightBackground = new Color(242, 242, 242);
     private DefaultTableModel tableModel;
     private JTable studentsTable;
+    private QueryFuture<List<Object[]>> pendingQuery;
 
-    public StudentRecordsPanel(int userId, boolean isDarkMode) {
-        this.userId = userId;
+    public StudentRecordsPanel(Session session, boolean isDarkMode) {
+        this.userId = session.getUserId();
         this.isDarkMode = isDarkMode;
         
         setLayout(new BorderLayout(10, 10));
@@ -54,10 +54,20 @@ public class StudentRecordsPanel extends JPanel {
         searchButton.setForeground(Color.WHITE);
         searchButton.setFocusPainted(false);
 
-        searchButton.addActionListener(e -> {
-            String searchText = searchField.getText().trim();
-            searchStudents(searchText);
-        });
+        IncrementalSearch<Object[]> search = new IncrementalSearch<>(searchField,
+            this::searchStudents,
+            StudentRecordsPanel::matches,
+            this::loadStudentData,
+            this::showRows,
+            ex -> {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this,
+                    "Error searching students: " + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            });
+        searchField.addActionListener(e -> search.runNow());
+        searchButton.addActionListener(e -> search.runNow());
 
         searchPanel.add(new JLabel("Search: "));
         searchPanel.add(searchField);
@@ -128,75 +138,86 @@ public class StudentRecordsPanel extends JPanel {
     }
 
     private void loadStudentData() {
-        tableModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String sql = 
-                "SELECT u.user_id, u.full_name, u.email, u.is_active, " +
-                "(SELECT COUNT(*) FROM book_borrowings WHERE user_id = u.user_id) as total_borrowed, " +
-                "(SELECT COUNT(*) FROM book_borrowings WHERE user_id = u.user_id AND status = 'RETURNED') as total_returned " +
-                "FROM users u WHERE u.role = 'STUDENT'";
+        String sql = 
+            "SELECT u.user_id, u.full_name, u.email, u.is_active, " +
+            "(SELECT COUNT(*) FROM book_borrowings WHERE user_id = u.user_id) as total_borrowed, " +
+            "(SELECT COUNT(*) FROM book_borrowings WHERE user_id = u.user_id AND status = 'RETURNED') as total_returned " +
+            "FROM users u WHERE u.role = 'STUDENT'";
 
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("user_id"),
-                    rs.getString("full_name"),
-                    rs.getString("email"),
-                    rs.getInt("total_borrowed"),
-                    rs.getInt("total_returned"),
-                    rs.getBoolean("is_active") ? "Active" : "Inactive"
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error loading student data: " + ex.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        runStudentQuery(sql, null, "Error loading student data: ");
     }
 
-    private void searchStudents(String searchText) {
-        tableModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String sql = 
-                "SELECT u.user_id, u.full_name, u.email, u.is_active, " +
-                "(SELECT COUNT(*) FROM book_borrowings WHERE user_id = u.user_id) as total_borrowed, " +
-                "(SELECT COUNT(*) FROM book_borrowings WHERE user_id = u.user_id AND status = 'RETURNED') as total_returned " +
-                "FROM users u WHERE u.role = 'STUDENT' AND " +
-                "(u.full_name LIKE ? OR u.email LIKE ? OR CAST(u.user_id AS VARCHAR) LIKE ?)";
-
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            String searchPattern = "%" + searchText + "%";
+    private QueryFuture<List<Object[]>> searchStudents(String searchText) {
+        // A search replaces whatever the full load would have shown
+        if (pendingQuery != null) {
+            pendingQuery.cancel(true);
+            pendingQuery = null;
+        }
+        String sql = 
+            "SELECT u.user_id, u.full_name, u.email, u.is_active, " +
+            "(SELECT COUNT(*) FROM book_borrowings WHERE user_id = u.user_id) as total_borrowed, " +
+            "(SELECT COUNT(*) FROM book_borrowings WHERE user_id = u.user_id AND status = 'RETURNED') as total_returned " +
+            "FROM users u WHERE u.role = 'STUDENT' AND " +
+            "(u.full_name LIKE ? OR u.email LIKE ? OR CAST(u.user_id AS CHAR) LIKE ?)";
+
+        String searchPattern = "%" + searchText + "%";
+        return queryStudents(sql, stmt -> {
             stmt.setString(1, searchPattern);
             stmt.setString(2, searchPattern);
             stmt.setString(3, searchPattern);
+        });
+    }
 
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("user_id"),
-                    rs.getString("full_name"),
-                    rs.getString("email"),
-                    rs.getInt("total_borrowed"),
-                    rs.getInt("total_returned"),
-                    rs.getBoolean("is_active") ? "Active" : "Inactive"
-                };
-                tableModel.addRow(row);
+    // Same test as the LIKE in searchStudents, for narrowing rows already on screen
+    private static boolean matches(Object[] row, String text) {
+        String needle = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= 2; i++) {
+            if (row[i] != null && row[i].toString().toLowerCase(Locale.ROOT).contains(needle)) {
+                return true;
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error searching students: " + ex.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
         }
+        return false;
+    }
+
+    // Runs the query off the EDT, aborting any previous load that is still running
+    private void runStudentQuery(String sql, DatabaseConnection.StatementBinder binder, String errorPrefix) {
+        if (pendingQuery != null) {
+            pendingQuery.cancel(true);
+        }
+        QueryFuture<List<Object[]>> query = queryStudents(sql, binder);
+        pendingQuery = query;
+
+        DatabaseConnection.onEdt(query,
+            rows -> {
+                if (query != pendingQuery) {
+                    return;
+                }
+                showRows(rows);
+            },
+            ex -> {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this,
+                    errorPrefix + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        );
+    }
+
+    private QueryFuture<List<Object[]>> queryStudents(String sql, DatabaseConnection.StatementBinder binder) {
+        return DatabaseConnection.query(sql, binder, rs -> new Object[]{
+            rs.getInt("user_id"),
+            rs.getString("full_name"),
+            rs.getString("email"),
+            rs.getInt("total_borrowed"),
+            rs.getInt("total_returned"),
+            rs.getBoolean("is_active") ? "Active" : "Inactive"
+        });
+    }
+
+    private void showRows(List<Object[]> rows) {
+        tableModel.setRowCount(0);
+        rows.forEach(tableModel::addRow);
     }
 
     private void viewStudentDetails() {
@@ -229,14 +250,8 @@ public class StudentRecordsPanel extends JPanel {
 
     private void showStudentDetailsDialog(int studentId) {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT * FROM users WHERE user_id = ?"
-            );
-            stmt.setInt(1, studentId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
+            User student = UserRepository.findById(studentId);
+            if (student != null) {
                 JDialog dialog = new JDialog();
                 dialog.setTitle("Student Details");
                 dialog.setLayout(new BorderLayout(10, 10));
@@ -246,10 +261,10 @@ public class StudentRecordsPanel extends JPanel {
                 JPanel detailsPanel = new JPanel(new GridLayout(0, 2, 10, 10));
                 detailsPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-                addDetailField(detailsPanel, "Student ID:", String.valueOf(rs.getInt("user_id")));
-                addDetailField(detailsPanel, "Full Name:", rs.getString("full_name"));
-                addDetailField(detailsPanel, "Email:", rs.getString("email"));
-                addDetailField(detailsPanel, "Status:", rs.getBoolean("is_active") ? "Active" : "Inactive");
+                addDetailField(detailsPanel, "Student ID:", String.valueOf(student.getId()));
+                addDetailField(detailsPanel, "Full Name:", student.getFullName());
+                addDetailField(detailsPanel, "Email:", student.getEmail());
+                addDetailField(detailsPanel, "Status:", student.isActive() ? "Active" : "Inactive");
 
                 dialog.add(detailsPanel, BorderLayout.CENTER);
                 dialog.setVisible(true);
@@ -275,23 +290,12 @@ public class StudentRecordsPanel extends JPanel {
         JTable historyTable = new JTable(historyModel);
 
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT b.title, bb.borrow_date, bb.return_date, bb.status " +
-                "FROM book_borrowings bb " +
-                "JOIN books b ON bb.book_id = b.book_id " +
-                "WHERE bb.user_id = ? " +
-                "ORDER BY bb.borrow_date DESC"
-            );
-            stmt.setInt(1, studentId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
+            for (Borrowing borrowing : BorrowingRepository.findHistoryByUser(studentId)) {
                 Object[] row = {
-                    rs.getString("title"),
-                    rs.getDate("borrow_date"),
-                    rs.getDate("return_date"),
-                    rs.getString("status")
+                    borrowing.getBookTitle(),
+                    Borrowing.dateOf(borrowing.getBorrowDate()),
+                    Borrowing.dateOf(borrowing.getReturnDate()),
+                    borrowing.getStatus()
                 };
                 historyModel.addRow(row);
             }
@@ -0,0 +1,174 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs units of work in a transaction on a pooled connection and retries the whole unit when
+// InnoDB picks it as a deadlock victim (SQLState 40001 / error 1213) or a lock wait times out
+// (error 1205). Retries back off exponentially with full jitter so colliding writers spread out.
+// Autocommit and isolation are always put back before the connection returns to the pool.
+public class TransactionTemplate {
+    private static final String SQLSTATE_SERIALIZATION_FAILURE = "40001";
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    public interface Work<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    private final ConnectionPool.ConnectionFactory connections;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong rollbacks = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong deadlocks = new AtomicLong();
+    private final AtomicLong lockWaitTimeouts = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    public TransactionTemplate(ConnectionPool.ConnectionFactory connections, int maxAttempts,
+                               long baseBackoffMillis, long maxBackoffMillis) {
+        this.connections = connections;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    // Runs the work in one transaction at the connection's default isolation level
+    public <T> T execute(Work<T> work) throws SQLException {
+        return execute(-1, work);
+    }
+
+    // Runs the work in one transaction, committing when it returns and rolling back when it throws.
+    // The work may run more than once, so it must not touch anything outside the connection.
+    public <T> T execute(int isolation, Work<T> work) throws SQLException {
+        return run(work, true, isolation);
+    }
+
+    // Retries work that manages its own transaction, such as a stored procedure call
+    public <T> T withRetry(Work<T> work) throws SQLException {
+        return run(work, false, -1);
+    }
+
+    private <T> T run(Work<T> work, boolean transactional, int isolation) throws SQLException {
+        transactions.incrementAndGet();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attempt(work, transactional, isolation);
+            } catch (SQLException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    throw e;
+                }
+                if (!backOff(attempt)) {
+                    throw e;
+                }
+                retries.incrementAndGet();
+            }
+        }
+    }
+
+    private <T> T attempt(Work<T> work, boolean transactional, int isolation) throws SQLException {
+        try (Connection conn = connections.create()) {
+            if (!transactional) {
+                return work.run(conn);
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            int previousIsolation = conn.getTransactionIsolation();
+            try {
+                if (isolation >= 0 && isolation != previousIsolation) {
+                    conn.setTransactionIsolation(isolation);
+                }
+                conn.setAutoCommit(false);
+                try {
+                    T result = work.run(conn);
+                    conn.commit();
+                    return result;
+                } catch (SQLException | RuntimeException e) {
+                    rollbacks.incrementAndGet();
+                    try {
+                        conn.rollback();
+                    } catch (SQLException rollbackFailure) {
+                        e.addSuppressed(rollbackFailure);
+                    }
+                    throw e;
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+                if (conn.getTransactionIsolation() != previousIsolation) {
+                    conn.setTransactionIsolation(previousIsolation);
+                }
+            }
+        }
+    }
+
+    // Deadlock victims and lock wait timeouts are safe to replay; the server has already
+    // rolled back (all of, or the last statement of) the failed attempt
+    boolean isRetryable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                SQLException sql = (SQLException) t;
+                for (SQLException s = sql; s != null; s = s.getNextException()) {
+                    if (s.getErrorCode() == ER_LOCK_DEADLOCK || SQLSTATE_SERIALIZATION_FAILURE.equals(s.getSQLState())) {
+                        deadlocks.incrementAndGet();
+                        return true;
+                    }
+                    if (s.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                        lockWaitTimeouts.incrementAndGet();
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Full jitter: sleep a random time up to the exponential bound for this attempt
+    private boolean backOff(int attempt) {
+        long bound = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(bound + 1);
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public long getTransactionCount() {
+        return transactions.get();
+    }
+
+    public long getRollbackCount() {
+        return rollbacks.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public long getDeadlockCount() {
+        return deadlocks.get();
+    }
+
+    public long getLockWaitTimeoutCount() {
+        return lockWaitTimeouts.get();
+    }
+
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+
+    public String describe() {
+        return String.format("transactions=%d, rollbacks=%d, retries=%d, deadlocks=%d, lockWaitTimeouts=%d, gaveUp=%d",
+            getTransactionCount(), getRollbackCount(), getRetryCount(), getDeadlockCount(),
+            getLockWaitTimeoutCount(), getExhaustedCount());
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Spelling corrections for the words of titles and author names, kept by CatalogSearchIndex.
+// Words are indexed by their letter trigrams ("$tolkien$" -> "$to", "tol", ..., "en$"). A misspelled
+// word is compared only with the words sharing enough of its trigrams, and those are ranked by
+// edit distance with adjacent transpositions ("tolkein" is one edit from "tolkien"), giving up on
+// a candidate as soon as it is further than the allowed number of edits. The index holds each
+// distinct word once, so it grows with the vocabulary rather than with the number of books.
+class TrigramIndex {
+    private static final int MAX_CANDIDATES = Integer.getInteger("library.search.fuzzyCandidates", 200);
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final Map<String, Integer> counts = new HashMap<>(); // word -> books containing it
+
+    void add(String word) {
+        if (counts.merge(word, 1, Integer::sum) == 1) {
+            for (String trigram : trigrams(word)) {
+                postings.computeIfAbsent(trigram, k -> new HashSet<>()).add(word);
+            }
+        }
+    }
+
+    void remove(String word) {
+        Integer count = counts.get(word);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            counts.put(word, count - 1);
+            return;
+        }
+        counts.remove(word);
+        for (String trigram : trigrams(word)) {
+            Set<String> words = postings.get(trigram);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        counts.clear();
+    }
+
+    // The indexed word closest to the given lower-case word, or null when none is within the
+    // allowed edits: one for words of up to five letters, two for longer ones, none under three
+    String closest(String word) {
+        int maxEdits = word.length() < 3 ? 0 : word.length() <= 5 ? 1 : 2;
+        if (maxEdits == 0) {
+            return null;
+        }
+
+        // An edit changes at most three trigrams and a transposition four, so a close word shares
+        // at least this many
+        Set<String> queryTrigrams = trigrams(word);
+        int minShared = Math.max(1, queryTrigrams.size() - 4 * maxEdits);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<String> words = postings.get(trigram);
+            if (words == null) {
+                continue;
+            }
+            for (String candidate : words) {
+                if (Math.abs(candidate.length() - word.length()) <= maxEdits) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+
+        // Check the candidates sharing the most trigrams first and stop after MAX_CANDIDATES
+        String best = null;
+        int bestDistance = maxEdits + 1;
+        int checked = 0;
+        for (Map.Entry<String, Integer> candidate : sortedByShared(shared, minShared)) {
+            if (++checked > MAX_CANDIDATES) {
+                break;
+            }
+            String other = candidate.getKey();
+            int distance = distance(word, other, Math.min(maxEdits, bestDistance));
+            if (distance < bestDistance
+                    || (distance == bestDistance && best != null && counts.get(other) > counts.get(best))) {
+                best = other;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private static List<Map.Entry<String, Integer>> sortedByShared(Map<String, Integer> shared, int minShared) {
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() >= minShared) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        return candidates;
+    }
+
+    // Optimal string alignment distance, or limit + 1 once every alignment needs more than limit edits
+    static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+    private static Set<String> trigrams(String word) {
+        String padded = "$" + word + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+}
@@ -2,10 +2,15 @@ import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class UserApprovalPanel extends JPanel {
+public class UserApprovalPanel extends JPanel implements PanelRegistry.Refreshable {
     private JTable pendingTable;
     private DefaultTableModel tableModel;
+    private JButton approveButton;
+    private JButton rejectButton;
 
     public UserApprovalPanel() {
         setLayout(new BorderLayout(10, 10));
@@ -24,11 +29,12 @@ public class UserApprovalPanel extends JPanel {
         };
 
         pendingTable = new JTable(tableModel);
+        pendingTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         JScrollPane scrollPane = new JScrollPane(pendingTable);
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JButton approveButton = new JButton("Approve");
-        JButton rejectButton = new JButton("Reject");
+        approveButton = new JButton("Approve");
+        rejectButton = new JButton("Reject");
         JButton refreshButton = new JButton("Refresh");
 
         buttonPanel.add(approveButton);
@@ -44,66 +50,101 @@ public class UserApprovalPanel extends JPanel {
     }
 
     private void handleApproval(boolean isApproved) {
-        int selectedRow = pendingTable.getSelectedRow();
-        if (selectedRow == -1) {
+        int[] selectedRows = pendingTable.getSelectedRows();
+        if (selectedRows.length == 0) {
             JOptionPane.showMessageDialog(this, "Please select a user to " + 
                 (isApproved ? "approve" : "reject"));
             return;
         }
 
-        int userId = (int) tableModel.getValueAt(selectedRow, 0);
-        String username = (String) tableModel.getValueAt(selectedRow, 1);
+        List<Integer> userIds = new ArrayList<>();
+        for (int row : selectedRows) {
+            userIds.add((int) tableModel.getValueAt(row, 0));
+        }
+        String message = "Your account has been " + 
+            (isApproved ? "approved" : "rejected") + " by the administrator.";
 
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "UPDATE users SET is_active = ? WHERE user_id = ?"
-            );
-            
-            stmt.setBoolean(1, isApproved);
-            stmt.setInt(2, userId);
-            
-            int result = stmt.executeUpdate();
-            if (result > 0) {
-                tableModel.removeRow(selectedRow);
-                JOptionPane.showMessageDialog(this, 
-                    "User " + username + " has been " + 
-                    (isApproved ? "approved" : "rejected") + " successfully");
-                
-                // Add notification
-                PreparedStatement notifyStmt = conn.prepareStatement(
-                    "INSERT INTO notifications (user_id, message) VALUES (?, ?)"
-                );
-                notifyStmt.setInt(1, userId);
-                notifyStmt.setString(2, "Your account has been " + 
-                    (isApproved ? "approved" : "rejected") + " by the administrator.");
-                notifyStmt.executeUpdate();
+        // The whole selection is one transaction of two batched statements, run off the EDT.
+        // Only users whose row was updated are notified.
+        setButtonsEnabled(false);
+        CompletableFuture<List<Integer>> approval = DatabaseConnection.inTransactionAsync(conn -> {
+            List<Integer> changed = new ArrayList<>();
+            try (PreparedStatement update = conn.prepareStatement(isApproved
+                    ? "UPDATE users SET is_active = true WHERE user_id = ? AND is_active = false"
+                    : "UPDATE users SET is_active = false WHERE user_id = ?")) {
+                for (int userId : userIds) {
+                    update.setInt(1, userId);
+                    update.addBatch();
+                }
+                int[] counts = update.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        changed.add(userIds.get(i));
+                    }
+                }
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, 
-                "Error " + (isApproved ? "approving" : "rejecting") + 
-                " user: " + ex.getMessage());
-        }
+            if (!changed.isEmpty()) {
+                try (PreparedStatement notify = conn.prepareStatement(
+                        "INSERT INTO notifications (user_id, message) VALUES (?, ?)")) {
+                    for (int userId : changed) {
+                        notify.setInt(1, userId);
+                        notify.setString(2, message);
+                        notify.addBatch();
+                    }
+                    notify.executeBatch();
+                }
+            }
+            return changed;
+        });
+
+        DatabaseConnection.onEdt(approval,
+            changed -> {
+                setButtonsEnabled(true);
+                List<String> usernames = new ArrayList<>();
+                for (int row = tableModel.getRowCount() - 1; row >= 0; row--) {
+                    if (changed.contains((Integer) tableModel.getValueAt(row, 0))) {
+                        if (isApproved) {
+                            LibraryStats.userActivated();
+                        }
+                        usernames.add(0, (String) tableModel.getValueAt(row, 1));
+                        tableModel.removeRow(row);
+                    }
+                }
+                if (!usernames.isEmpty()) {
+                    JOptionPane.showMessageDialog(this, 
+                        (usernames.size() == 1 ? "User " + usernames.get(0) + " has" : usernames.size() + " users have") + 
+                        " been " + (isApproved ? "approved" : "rejected") + " successfully");
+                }
+            },
+            ex -> {
+                setButtonsEnabled(true);
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, 
+                    "Error " + (isApproved ? "approving" : "rejecting") + 
+                    " user: " + ex.getMessage());
+            });
+    }
+
+    private void setButtonsEnabled(boolean enabled) {
+        approveButton.setEnabled(enabled);
+        rejectButton.setEnabled(enabled);
+    }
+
+    @Override
+    public void refresh() {
+        loadPendingApprovals();
     }
 
     private void loadPendingApprovals() {
         tableModel.setRowCount(0);
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(
-                "SELECT user_id, username, full_name, email, role " +
-                "FROM users WHERE is_active = false ORDER BY user_id"
-            );
-            
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
+            for (User user : UserRepository.findPending()) {
                 Object[] row = {
-                    rs.getInt("user_id"),
-                    rs.getString("username"),
-                    rs.getString("full_name"),
-                    rs.getString("email"),
-                    rs.getString("role")
+                    user.getId(),
+                    user.getUsername(),
+                    user.getFullName(),
+                    user.getEmail(),
+                    user.getRole()
                 };
                 tableModel.addRow(row);
             }
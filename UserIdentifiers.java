@@ -0,0 +1,77 @@
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+// Bloom filters over every username and email in users, so sign-up can tell that a name is free
+// without asking the database. A miss is certain; a hit may be a false positive and is confirmed
+// with one query. Values are lower-cased to match the case-insensitive unique indexes, and
+// anything the filters get wrong (e.g. accent variants) is still caught by those indexes.
+// Until warm() has finished every value counts as a possible hit.
+public class UserIdentifiers {
+    private static final int EXPECTED_USERS = Integer.getInteger("library.signup.expectedUsers", 100_000);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private static volatile BloomFilter usernames;
+    private static volatile BloomFilter emails;
+    private static volatile boolean ready = false;
+
+    private UserIdentifiers() {
+    }
+
+    public static boolean mayHaveUsername(String username) {
+        return !ready || usernames.mightContain(normalize(username));
+    }
+
+    public static boolean mayHaveEmail(String email) {
+        return !ready || emails.mightContain(normalize(email));
+    }
+
+    // Applied after an insert or update of users has committed; either value may be null
+    public static void added(String username, String email) {
+        BloomFilter u = usernames;
+        BloomFilter e = emails;
+        if (u != null && username != null) {
+            u.add(normalize(username));
+        }
+        if (e != null && email != null) {
+            e.add(normalize(email));
+        }
+    }
+
+    // Loads every existing username and email. The new filters are published before the load so
+    // that sign-ups committing meanwhile land in them, and only used once the load is complete.
+    public static synchronized void warm() throws SQLException {
+        ready = false;
+        int count = DatabaseConnection.queryInt("SELECT COUNT(*) FROM users", null);
+        int expected = Math.max(EXPECTED_USERS, count * 2);
+        BloomFilter u = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        BloomFilter e = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        usernames = u;
+        emails = e;
+
+        List<String[]> rows = DatabaseConnection.queryList(
+            "SELECT username, email FROM users", null,
+            rs -> new String[]{rs.getString(1), rs.getString(2)});
+        for (String[] row : rows) {
+            u.add(normalize(row[0]));
+            e.add(normalize(row[1]));
+        }
+        ready = true;
+    }
+
+    public static void warmInBackground() {
+        Thread t = new Thread(() -> {
+            try {
+                warm();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Sign-up precheck warm-up failed: " + e.getMessage());
+            }
+        }, "user-identifiers");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
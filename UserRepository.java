@@ -0,0 +1,101 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// All user queries in one place, mapped by position in COLUMNS order.
+// Passwords are compared in SQL and never loaded into User objects.
+public class UserRepository {
+    static final String COLUMNS = "user_id, username, role, email, full_name, is_active";
+
+    static User map(ResultSet rs) throws SQLException {
+        return new User(
+            rs.getInt(1),
+            rs.getString(2),
+            null,
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getBoolean(6)
+        );
+    }
+
+    // Session for the active account matching the credentials, or null. Settings come from the
+    // same query, so the dashboards never need to read the user or settings rows again.
+    public static Session login(String username, String password, String role) throws SQLException {
+        return DatabaseConnection.queryFirst(
+            "SELECT u.user_id, u.username, u.role, u.email, u.full_name, u.is_active, " +
+            "s.theme_mode, s.notification_enabled " +
+            "FROM users u LEFT JOIN settings s ON s.user_id = u.user_id " +
+            "WHERE u.username = ? AND u.password = ? AND u.role = ? AND u.is_active = true",
+            stmt -> {
+                stmt.setString(1, username);
+                stmt.setString(2, password);
+                stmt.setString(3, role.toUpperCase());
+            },
+            rs -> {
+                // No settings row yet means the column defaults
+                boolean notifications = rs.getObject(8) == null || rs.getBoolean(8);
+                return new Session(map(rs), rs.getString(7), notifications);
+            });
+    }
+
+    public static void saveSettings(int userId, String themeMode, boolean notificationsEnabled) throws SQLException {
+        DatabaseConnection.update(
+            "INSERT INTO settings (user_id, theme_mode, notification_enabled) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE theme_mode = VALUES(theme_mode), notification_enabled = VALUES(notification_enabled)",
+            stmt -> {
+                stmt.setInt(1, userId);
+                stmt.setString(2, themeMode);
+                stmt.setBoolean(3, notificationsEnabled);
+            });
+    }
+
+    // Whether the username and the email are already in use, as {usernameTaken, emailTaken}, from one lookup
+    public static boolean[] findTaken(String username, String email) throws SQLException {
+        return DatabaseConnection.queryFirst(
+            "SELECT COALESCE(SUM(username = ?), 0), COALESCE(SUM(email = ?), 0) " +
+            "FROM users WHERE username = ? OR email = ?",
+            stmt -> {
+                stmt.setString(1, username);
+                stmt.setString(2, email);
+                stmt.setString(3, username);
+                stmt.setString(4, email);
+            },
+            rs -> new boolean[]{rs.getInt(1) > 0, rs.getInt(2) > 0});
+    }
+
+    public static User findById(int userId) throws SQLException {
+        return DatabaseConnection.queryFirst(
+            "SELECT " + COLUMNS + " FROM users WHERE user_id = ?",
+            stmt -> stmt.setInt(1, userId),
+            UserRepository::map);
+    }
+
+    // Accounts waiting for admin approval
+    public static List<User> findPending() throws SQLException {
+        return DatabaseConnection.queryList(
+            "SELECT " + COLUMNS + " FROM users WHERE is_active = false ORDER BY user_id",
+            null, UserRepository::map);
+    }
+
+    public static List<User> findByRole(String role) throws SQLException {
+        return DatabaseConnection.queryList(
+            "SELECT " + COLUMNS + " FROM users WHERE role = ? ORDER BY user_id",
+            stmt -> stmt.setString(1, role),
+            UserRepository::map);
+    }
+
+    // Full name for display, falling back to the username
+    public static String displayName(User user, String fallback) {
+        if (user == null) {
+            return fallback;
+        }
+        if (user.getFullName() != null && !user.getFullName().trim().isEmpty()) {
+            return user.getFullName();
+        }
+        if (user.getUsername() != null && !user.getUsername().trim().isEmpty()) {
+            return user.getUsername();
+        }
+        return fallback;
+    }
+}